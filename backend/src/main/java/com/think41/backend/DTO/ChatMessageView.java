@@ -0,0 +1,20 @@
+package com.think41.backend.DTO;
+
+import com.think41.backend.entity.ChatMessage.SenderType;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One message of a history page, selected straight into this DTO by a JPQL constructor expression
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageView {
+    private Long id;
+    private Integer sequenceNumber; // Use as the before/after cursor
+    private SenderType sender;
+    private String content;
+    private LocalDateTime timestamp;
+}
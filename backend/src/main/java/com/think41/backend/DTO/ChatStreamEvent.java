@@ -0,0 +1,31 @@
+package com.think41.backend.DTO;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// One Server-Sent Event of /api/chat/stream
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatStreamEvent {
+    public static final String TOKEN = "token"; // A piece of the AI's answer, in order
+    public static final String DONE = "done"; // Final event: the persisted AI message
+    public static final String ERROR = "error"; // Generation failed; the stream ends
+
+    private String type;
+    private String content; // Token text or error message
+    private ChatResponse response; // Only set on the DONE event
+
+    public static ChatStreamEvent token(String content) {
+        return new ChatStreamEvent(TOKEN, content, null);
+    }
+
+    public static ChatStreamEvent done(ChatResponse response) {
+        return new ChatStreamEvent(DONE, null, response);
+    }
+
+    public static ChatStreamEvent error(String message) {
+        return new ChatStreamEvent(ERROR, message, null);
+    }
+}
@@ -0,0 +1,20 @@
+package com.think41.backend.DTO;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+// One page of GET /api/conversations/{sessionId}: messages in ascending sequence order plus the cursors around them
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationHistoryPage {
+    private ConversationSessionView session;
+    private List<ChatMessageView> messages;
+    private Integer before; // Pass as ?before= for the next older page; null when this page reaches the first message
+    // Pass as ?after= for newer messages. An ?after= page sets it only while more messages remain, so a poller
+    // that gets null has caught up and keeps its last cursor; other pages end at their newest message (null if empty)
+    private Integer after;
+}
@@ -0,0 +1,18 @@
+package com.think41.backend.DTO;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+// One page of GET /api/users/{userId}/conversations, newest session first
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationListPage {
+    private List<ConversationSessionView> sessions;
+    private int page;
+    private int size;
+    private boolean hasNext;
+}
@@ -0,0 +1,20 @@
+package com.think41.backend.DTO;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A session without its user or messages, selected straight into this DTO by a JPQL constructor expression
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationSessionView {
+    private Long id;
+    private String title;
+    private String status;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Integer lastSequenceNumber; // Sequence number of the newest message; null for sessions that predate the counter
+}
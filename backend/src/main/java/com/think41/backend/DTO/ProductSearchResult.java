@@ -0,0 +1,18 @@
+package com.think41.backend.DTO;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+// The product fields the search_products tool reports, without the entity's DistributionCenter
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResult {
+    private Long id;
+    private String name;
+    private String brand;
+    private String category;
+    private String department;
+    private Double retailPrice;
+}
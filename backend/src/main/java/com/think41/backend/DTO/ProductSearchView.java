@@ -0,0 +1,11 @@
+package com.think41.backend.DTO;
+
+// Projection returned by the ProductRepository search queries; aliases in the SQL match the getters
+public interface ProductSearchView {
+    Long getId();
+    String getName();
+    String getBrand();
+    String getCategory();
+    String getDepartment();
+    Double getRetailPrice();
+}
@@ -1,8 +1,12 @@
 package com.think41.backend.Repo;
 
+import com.think41.backend.DTO.ChatMessageView;
 import com.think41.backend.entity.ChatMessage;
 import com.think41.backend.entity.ConversationSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +15,22 @@ import java.util.List;
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
     // Find all messages in a session, ordered chronologically
     List<ChatMessage> findBySessionOrderBySequenceNumberAsc(ConversationSession session);
+
+    // Newest messages first; the page size bounds how much history a chat turn reads
+    List<ChatMessage> findBySessionIdOrderBySequenceNumberDesc(Long sessionId, Pageable pageable);
+
+    // A range of messages in chronological order, at most one page of them
+    List<ChatMessage> findBySessionIdAndSequenceNumberBetweenOrderBySequenceNumberAsc(Long sessionId, Integer from, Integer to, Pageable pageable);
+
+    // History pages, keyset-paginated on the (session_id, sequence_number) unique index: each page is one
+    // index range scan however deep it is, and only the columns of the view are read
+    String MESSAGE_VIEW = "SELECT new com.think41.backend.DTO.ChatMessageView(m.id, m.sequenceNumber, m.senderType, m.messageContent, m.timestamp) " +
+            "FROM ChatMessage m WHERE m.session.id = :sessionId ";
+
+    // Newest first, so the page ends next to the cursor
+    @Query(MESSAGE_VIEW + "AND m.sequenceNumber < :before ORDER BY m.sequenceNumber DESC")
+    List<ChatMessageView> findViewsBefore(@Param("sessionId") Long sessionId, @Param("before") int before, Pageable pageable);
+
+    @Query(MESSAGE_VIEW + "AND m.sequenceNumber > :after ORDER BY m.sequenceNumber ASC")
+    List<ChatMessageView> findViewsAfter(@Param("sessionId") Long sessionId, @Param("after") int after, Pageable pageable);
 }
\ No newline at end of file
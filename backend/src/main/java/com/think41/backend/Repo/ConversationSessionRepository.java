@@ -1,17 +1,54 @@
 package com.think41.backend.Repo;
 
+import com.think41.backend.DTO.ConversationSessionView;
 import com.think41.backend.entity.ConversationSession;
 import com.think41.backend.entity.User; // Import your User entity
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ConversationSessionRepository extends JpaRepository<ConversationSession, Long> {
     // Find sessions for a specific user, ordered by start time
     List<ConversationSession> findByUserOrderByStartTimeDesc(User user);
 
+    String SESSION_VIEW = "SELECT new com.think41.backend.DTO.ConversationSessionView(s.id, s.title, s.status, s.startTime, s.endTime, s.lastSequenceNumber) " +
+            "FROM ConversationSession s ";
+
+    // One page of a user's sessions as views; a Slice reads one extra row instead of running a count query
+    @Query(SESSION_VIEW + "WHERE s.user = :user ORDER BY s.startTime DESC, s.id DESC")
+    Slice<ConversationSessionView> findByUserOrderByStartTimeDesc(@Param("user") User user, Pageable pageable);
+
+    @Query(SESSION_VIEW + "WHERE s.id = :sessionId")
+    Optional<ConversationSessionView> findViewById(@Param("sessionId") Long sessionId);
+
     // Find active sessions for a user
     List<ConversationSession> findByUserAndStatus(User user, String status);
+
+    // Advances the session's message counter in one row update; the row lock it takes serializes
+    // concurrent turns on the same session until commit. Sessions created before the counter existed
+    // start from their current highest message (looked up once, while the counter is still NULL).
+    @Modifying
+    @Query(value = "UPDATE conversation_sessions SET last_sequence_number = COALESCE(last_sequence_number, " +
+            "(SELECT MAX(m.sequence_number) FROM chat_messages m WHERE m.session_id = :sessionId), 0) + 1 " +
+            "WHERE id = :sessionId", nativeQuery = true)
+    int incrementSequenceNumber(@Param("sessionId") Long sessionId);
+
+    @Query("SELECT s.lastSequenceNumber FROM ConversationSession s WHERE s.id = :sessionId")
+    Integer findLastSequenceNumber(@Param("sessionId") Long sessionId);
+
+    // Stores a newer rolling summary; a slower, older fold can never overwrite a newer one
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE conversation_sessions SET summary = :summary, summarized_through_sequence = :through " +
+            "WHERE id = :sessionId AND COALESCE(summarized_through_sequence, 0) < :through", nativeQuery = true)
+    int updateSummary(@Param("sessionId") Long sessionId, @Param("summary") String summary, @Param("through") int through);
 }
\ No newline at end of file
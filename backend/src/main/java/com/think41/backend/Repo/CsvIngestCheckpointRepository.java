@@ -0,0 +1,7 @@
+package com.think41.backend.Repo;
+
+import com.think41.backend.entity.CsvIngestCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CsvIngestCheckpointRepository extends JpaRepository<CsvIngestCheckpoint, String> {
+}
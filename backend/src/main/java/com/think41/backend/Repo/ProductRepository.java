@@ -1,8 +1,36 @@
 package com.think41.backend.Repo;
 
+import com.think41.backend.DTO.ProductSearchView;
 import com.think41.backend.entity.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {}
\ No newline at end of file
+public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Must stay identical to the expressions of the indexes created by DatabaseProductSearch, or PostgreSQL won't use them
+    String SEARCH_VECTOR = "(setweight(to_tsvector('simple', coalesce(name, '')), 'A') || " +
+            "setweight(to_tsvector('simple', coalesce(brand, '')), 'B') || " +
+            "setweight(to_tsvector('simple', coalesce(category, '')), 'C'))";
+    String SEARCH_TEXT = "(coalesce(name, '') || ' ' || coalesce(brand, '') || ' ' || coalesce(category, ''))";
+    String VIEW_COLUMNS = "p.id AS id, p.name AS name, p.brand AS brand, p.category AS category, " +
+            "p.department AS department, p.retail_price AS \"retailPrice\"";
+
+    // Full-text match on a to_tsquery expression such as "levis:* & jeans:*", best ts_rank first (GIN index)
+    @Query(value = "SELECT " + VIEW_COLUMNS + " FROM products p " +
+            "WHERE " + SEARCH_VECTOR + " @@ to_tsquery('simple', :tsQuery) " +
+            "ORDER BY ts_rank(" + SEARCH_VECTOR + ", to_tsquery('simple', :tsQuery)) DESC, p.id",
+            nativeQuery = true)
+    Slice<ProductSearchView> searchFullText(@Param("tsQuery") String tsQuery, Pageable pageable);
+
+    // Fuzzy fallback: pg_trgm word similarity, which tolerates typos and partial words (GIN trigram index)
+    @Query(value = "SELECT " + VIEW_COLUMNS + " FROM products p " +
+            "WHERE :query <% " + SEARCH_TEXT + " " +
+            "ORDER BY word_similarity(:query, " + SEARCH_TEXT + ") DESC, p.id",
+            nativeQuery = true)
+    Slice<ProductSearchView> searchSimilar(@Param("query") String query, Pageable pageable);
+}
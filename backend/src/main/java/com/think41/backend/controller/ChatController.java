@@ -2,19 +2,33 @@ package com.think41.backend.controller;
 
 import com.think41.backend.DTO.ChatRequest;
 import com.think41.backend.DTO.ChatResponse;
+import com.think41.backend.DTO.ChatStreamEvent;
+import com.think41.backend.services.AdmissionControl;
+import com.think41.backend.services.AdmissionRejectedException;
 import com.think41.backend.services.ChatService; // Ensure this import is correct
+import com.think41.backend.services.GroqUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api")
 public class ChatController {
 
+    private static final Logger log = LoggerFactory.getLogger(ChatController.class);
+
     private final ChatService chatService;
+    private final AdmissionControl admissionControl;
 
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService, AdmissionControl admissionControl) {
         this.chatService = chatService;
+        this.admissionControl = admissionControl;
     }
 
     @PostMapping("/chat")
@@ -23,26 +37,93 @@ public class ChatController {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        try {
+        // Over the user's rate or global capacity: answer 429 now instead of queueing behind Groq
+        try (AdmissionControl.Permit permit = admissionControl.acquire(request.getUserId())) {
             ChatResponse response = chatService.handleChatMessage(request);
             return ResponseEntity.ok(response);
+        } catch (AdmissionRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(e))
+                    .body(new ChatResponse(null, null, e.getMessage(), null, null));
         } catch (IllegalArgumentException | SecurityException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ChatResponse(null, null, e.getMessage(), null, null));
+        } catch (GroqUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ChatResponse(null, null, e.getMessage(), null, null));
         } catch (Exception e) {
-            System.err.println("Error processing chat message: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error processing chat message", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ChatResponse(null, null, "An internal server error occurred: " + e.getMessage(), null, null));
         }
     }
 
+    // Same as /chat, but streams the answer as Server-Sent Events: "token" events while it is generated,
+    // then one "done" event carrying the persisted message (or an "error" event)
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<ChatStreamEvent>>> streamChat(@RequestBody ChatRequest request) {
+        if (request.getUserId() == null || request.getMessage() == null || request.getMessage().trim().isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        AdmissionControl.Permit permit;
+        try {
+            permit = admissionControl.acquire(request.getUserId());
+        } catch (AdmissionRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(e))
+                    .body(Flux.just(ServerSentEvent.builder(ChatStreamEvent.error(e.getMessage())).event(ChatStreamEvent.ERROR).build()));
+        }
+
+        try {
+            // The slot is held until the stream ends, however it ends
+            Flux<ServerSentEvent<ChatStreamEvent>> events = chatService.streamChatMessage(request)
+                    .map(event -> ServerSentEvent.builder(event).event(event.getType()).build())
+                    .doFinally(signal -> permit.close());
+            return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(events);
+        } catch (IllegalArgumentException | SecurityException e) {
+            permit.close();
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Flux.just(ServerSentEvent.builder(ChatStreamEvent.error(e.getMessage())).event(ChatStreamEvent.ERROR).build()));
+        } catch (Exception e) {
+            permit.close();
+            log.error("Error processing chat message", e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private static String retryAfterSeconds(AdmissionRejectedException e) {
+        return String.valueOf(Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000));
+    }
+
+    // One page of history, oldest message first: the newest page by default, then ?before=<cursor> for older
+    // messages or ?after=<cursor> for newer ones; the cursors come back in the response
     @GetMapping("/conversations/{sessionId}")
-    public ResponseEntity<?> getConversationHistory(@PathVariable Long sessionId) {
+    public ResponseEntity<?> getConversationHistory(@PathVariable Long sessionId,
+                                                    @RequestParam(required = false) Integer before,
+                                                    @RequestParam(required = false) Integer after,
+                                                    @RequestParam(defaultValue = "50") int limit) {
+        if (before != null && after != null) {
+            return ResponseEntity.badRequest().body("Use either 'before' or 'after', not both.");
+        }
         try {
-            return ResponseEntity.ok(chatService.getConversationHistory(sessionId));
+            return ResponseEntity.ok(chatService.getConversationHistory(sessionId, before, after, limit));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (Exception e) {
+            log.error("Error retrieving conversation history", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error retrieving conversation history.");
         }
     }
+
+    @GetMapping("/users/{userId}/conversations")
+    public ResponseEntity<?> listConversations(@PathVariable Long userId,
+                                               @RequestParam(defaultValue = "0") int page,
+                                               @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(chatService.listConversations(userId, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error listing conversations", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error listing conversations.");
+        }
+    }
 }
\ No newline at end of file
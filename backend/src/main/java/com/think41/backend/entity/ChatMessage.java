@@ -4,11 +4,14 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages",
+        uniqueConstraints = @UniqueConstraint(name = "uk_chat_messages_session_sequence", columnNames = {"session_id", "sequence_number"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -34,8 +37,10 @@ public class ChatMessage {
     @Column(name = "timestamp", nullable = false)
     private LocalDateTime timestamp;
 
-    @Column(name = "metadata", columnDefinition = "JSONB") // For PostgreSQL JSONB type
-    private String metadata; // Store as String (JSON) for simplicity, or use a JSON mapping library
+    // JSON text; bound as JSON rather than varchar, which PostgreSQL refuses to write into a jsonb column
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "metadata", columnDefinition = "JSONB")
+    private String metadata;
 
     // Enum for SenderType
     public enum SenderType {
@@ -8,7 +8,8 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime; // Use LocalDateTime for timestamps in this context
 
 @Entity
-@Table(name = "conversation_sessions")
+@Table(name = "conversation_sessions",
+        indexes = @Index(name = "idx_conversation_sessions_user_start", columnList = "user_id, start_time DESC"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,6 +31,18 @@ public class ConversationSession {
     private String title; // Optional: auto-generated or user-defined title for the session
     private String status; // e.g., ACTIVE, CLOSED, EXPIRED
 
+    // Highest message sequence number handed out in this session. Only advanced atomically by
+    // ConversationSessionRepository.incrementSequenceNumber, never written through the entity.
+    @Column(name = "last_sequence_number", insertable = false, updatable = false)
+    private Integer lastSequenceNumber;
+
+    // Rolling summary of the messages that no longer fit in the prompt window, and the last sequence
+    // number it covers. Maintained by ConversationSummarizer through repository updates only.
+    @Column(name = "summary", columnDefinition = "TEXT", insertable = false, updatable = false)
+    private String summary;
+    @Column(name = "summarized_through_sequence", insertable = false, updatable = false)
+    private Integer summarizedThroughSequence;
+
     // A list of messages in this session.
     // MappedBy indicates the owning side of the relationship is in ChatMessage
     @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -0,0 +1,45 @@
+package com.think41.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Progress of the incremental CSV loader for one source file
+@Entity
+@Table(name = "csv_ingest_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CsvIngestCheckpoint {
+    @Id
+    @Column(name = "file_name")
+    private String fileName; // e.g. orders.csv or orders.delta-2024-06-01.csv
+
+    @Column(name = "table_name", nullable = false)
+    private String tableName;
+
+    // Fingerprint of the file the offset refers to
+    @Column(name = "file_length")
+    private Long fileLength;
+    @Column(name = "file_last_modified")
+    private Long fileLastModified;
+
+    @Column(name = "char_offset", nullable = false)
+    private Long charOffset; // Characters already committed, including the header line
+    @Column(name = "prefix_checksum")
+    private String prefixChecksum; // SHA-256 of the first charOffset characters; only kept for a completed file
+    @Column(name = "record_count", nullable = false)
+    private Long recordCount; // Data records committed so far
+
+    @Column(nullable = false)
+    private Boolean completed; // True once the whole file has been committed
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -1,5 +1,6 @@
 package com.think41.backend.entity;
 
+import com.think41.backend.entity.listener.OrderWriteListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "orders")
+@EntityListeners(OrderWriteListener.class) // keeps cached check_order_status answers fresh
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
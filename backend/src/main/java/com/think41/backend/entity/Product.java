@@ -1,5 +1,6 @@
 package com.think41.backend.entity;
 
+import com.think41.backend.entity.listener.ProductWriteListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -7,6 +8,7 @@ import lombok.AllArgsConstructor;
 
 @Entity
 @Table(name = "products")
+@EntityListeners(ProductWriteListener.class) // keeps the in-memory search index current
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,29 @@
+package com.think41.backend.entity.listener;
+
+import com.think41.backend.entity.Order;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that announces order writes as {@link OrderWrittenEvent}s; what to do about
+ * them is up to the services that listen. Hibernate obtains it from the Spring context.
+ */
+@Component
+public class OrderWriteListener {
+
+    private final ApplicationEventPublisher events;
+
+    public OrderWriteListener(ApplicationEventPublisher events) {
+        this.events = events;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onOrderWritten(Order order) {
+        events.publishEvent(new OrderWrittenEvent(order.getId()));
+    }
+}
@@ -0,0 +1,29 @@
+package com.think41.backend.entity.listener;
+
+import com.think41.backend.entity.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that announces product writes as {@link ProductWrittenEvent}s; what to do
+ * about them is up to the services that listen. Hibernate obtains it from the Spring context.
+ */
+@Component
+public class ProductWriteListener {
+
+    private final ApplicationEventPublisher events;
+
+    public ProductWriteListener(ApplicationEventPublisher events) {
+        this.events = events;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onProductWritten(Product product) {
+        events.publishEvent(new ProductWrittenEvent(product.getId()));
+    }
+}
@@ -0,0 +1,7 @@
+package com.think41.backend.entity.listener;
+
+/**
+ * Published, inside the writing transaction, whenever a {@code Product} is inserted, updated or deleted through JPA.
+ */
+public record ProductWrittenEvent(Long productId) {
+}
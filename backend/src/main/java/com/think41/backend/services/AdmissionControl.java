@@ -0,0 +1,287 @@
+package com.think41.backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether a chat request may run now, so overload turns into fast 429s instead of every
+ * request timing out against Groq at once.
+ * <p>
+ * Each user has a token bucket ({@code chat.admission.user-rate-per-minute}, bursts of
+ * {@code user-burst}). Admitted requests then share a global concurrency limit that adapts to Groq
+ * (AIMD): it grows by about one per limit's worth of fast Groq responses while in use, and shrinks by
+ * {@code backoff-ratio} on a 429, 503, timeout or a response slower than {@code latency-threshold}, at
+ * most once per {@code decrease-interval}. Requests over the limit wait in a bounded FIFO queue for at
+ * most {@code max-wait}; one that would likely not get a slot in time is rejected immediately.
+ */
+@Component
+public class AdmissionControl {
+
+    private final boolean enabled;
+    private final double userTokensPerNano;
+    private final double userBurst;
+    private final Cache<Long, TokenBucket> userBuckets;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final long decreaseIntervalNanos;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>(); // guarded by lock
+    private double limit;                                       // guarded by lock
+    private int inFlight;                                       // guarded by lock
+    private long lastDecreaseNanos;                             // guarded by lock
+    private double averageHoldNanos;                            // EWMA of permit hold time; guarded by lock
+
+    private final Counter rejectedUserRate;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedDeadline;
+
+    public AdmissionControl(@Value("${chat.admission.enabled:true}") boolean enabled,
+                            @Value("${chat.admission.user-rate-per-minute:20}") double userRatePerMinute,
+                            @Value("${chat.admission.user-burst:5}") int userBurst,
+                            @Value("${chat.admission.initial-limit:20}") int initialLimit,
+                            @Value("${chat.admission.min-limit:2}") int minLimit,
+                            @Value("${chat.admission.max-limit:200}") int maxLimit,
+                            @Value("${chat.admission.backoff-ratio:0.7}") double backoffRatio,
+                            @Value("${chat.admission.latency-threshold:8s}") Duration latencyThreshold,
+                            @Value("${chat.admission.decrease-interval:1s}") Duration decreaseInterval,
+                            @Value("${chat.admission.max-queue:100}") int maxQueue,
+                            @Value("${chat.admission.max-wait:3s}") Duration maxWait,
+                            GroqTransport groqTransport,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.userTokensPerNano = userRatePerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.userBurst = Math.max(1, userBurst);
+        this.userBuckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10)) // an idle user's bucket would be full again anyway
+                .build();
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.decreaseIntervalNanos = decreaseInterval.toNanos();
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.lastDecreaseNanos = System.nanoTime() - decreaseIntervalNanos;
+
+        groqTransport.addAttemptListener(this::onGroqAttempt);
+
+        this.rejectedUserRate = rejectedCounter(meterRegistry, "user_rate");
+        this.rejectedQueueFull = rejectedCounter(meterRegistry, "queue_full");
+        this.rejectedDeadline = rejectedCounter(meterRegistry, "deadline");
+        Gauge.builder("chat.admission.limit", this, control -> control.read(() -> control.limit))
+                .description("Current adaptive concurrency limit for chat requests")
+                .register(meterRegistry);
+        Gauge.builder("chat.admission.in-flight", this, control -> control.read(() -> control.inFlight))
+                .register(meterRegistry);
+        Gauge.builder("chat.admission.queued", this, control -> control.read(() -> control.queue.size()))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Waits for a slot for one chat request from this user; close the permit when the request is done.
+     *
+     * @throws AdmissionRejectedException if the user is over their rate, or no slot is likely in time
+     */
+    public Permit acquire(Long userId) {
+        if (!enabled) {
+            return new Permit(false);
+        }
+        if (userId != null) {
+            long waitNanos = userBuckets.get(userId, id -> new TokenBucket()).tryTake();
+            if (waitNanos > 0) {
+                rejectedUserRate.increment();
+                throw new AdmissionRejectedException("Too many messages; please slow down.", Duration.ofNanos(waitNanos));
+            }
+        }
+
+        lock.lock();
+        try {
+            if (queue.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                return new Permit(true);
+            }
+            if (queue.size() >= maxQueue) {
+                rejectedQueueFull.increment();
+                throw busy(queue.size());
+            }
+            // Shed now rather than after max-wait if the queue ahead will likely take longer than that
+            if (estimatedWaitNanos(queue.size() + 1) > maxWaitNanos) {
+                rejectedDeadline.increment();
+                throw busy(queue.size() + 1);
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            queue.addLast(waiter);
+            long remaining = maxWaitNanos;
+            try {
+                while (!waiter.admitted) {
+                    if (remaining <= 0) {
+                        queue.remove(waiter);
+                        rejectedDeadline.increment();
+                        throw busy(queue.size());
+                    }
+                    remaining = waiter.ready.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.admitted) {
+                    release(0, false);
+                } else {
+                    queue.remove(waiter);
+                }
+                throw new AdmissionRejectedException("Request interrupted while waiting for capacity.", Duration.ZERO);
+            }
+            return new Permit(true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * One admitted request; {@link #close()} releases its slot. Closing more than once is harmless.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final boolean counted;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(boolean counted) {
+            this.counted = counted;
+        }
+
+        @Override
+        public void close() {
+            if (counted && closed.compareAndSet(false, true)) {
+                lock.lock();
+                try {
+                    release(System.nanoTime() - startNanos, true);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    // AIMD on Groq's signals: additive increase while busy and fast, multiplicative decrease on overload
+    void onGroqAttempt(long latencyNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            if (overloaded || latencyNanos > latencyThresholdNanos) {
+                long now = System.nanoTime();
+                // A burst of 429s from one overload episode counts once
+                if (now - lastDecreaseNanos >= decreaseIntervalNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else if (inFlight >= limit / 2) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+                admitWaiters();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int limit() {
+        return read(() -> (int) limit);
+    }
+
+    // Caller holds the lock
+    private void release(long heldNanos, boolean sample) {
+        inFlight--;
+        if (sample) {
+            averageHoldNanos = averageHoldNanos == 0 ? heldNanos : 0.8 * averageHoldNanos + 0.2 * heldNanos;
+        }
+        admitWaiters();
+    }
+
+    // Caller holds the lock
+    private void admitWaiters() {
+        while (!queue.isEmpty() && inFlight < (int) limit) {
+            Waiter waiter = queue.pollFirst();
+            waiter.admitted = true;
+            inFlight++;
+            waiter.ready.signal();
+        }
+    }
+
+    // Slots free up about limit times per average hold time; unknown until a request has finished
+    private long estimatedWaitNanos(int position) {
+        return (long) (averageHoldNanos * position / Math.max(1, (int) limit));
+    }
+
+    private AdmissionRejectedException busy(int position) {
+        long retryNanos = Math.max(TimeUnit.SECONDS.toNanos(1), estimatedWaitNanos(Math.max(1, position)));
+        return new AdmissionRejectedException("The assistant is busy right now; please try again shortly.",
+                Duration.ofNanos(retryNanos));
+    }
+
+    private <T> T read(Supplier<T> value) {
+        lock.lock();
+        try {
+            return value.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("chat.admission.rejected")
+                .description("Chat requests answered with 429 by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static final class Waiter {
+        private final Condition ready;
+        private boolean admitted; // guarded by lock
+
+        private Waiter(Condition ready) {
+            this.ready = ready;
+        }
+    }
+
+    private final class TokenBucket {
+        private double tokens = userBurst;
+        private long refilledAt = System.nanoTime();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // 0 if a token was taken, otherwise nanos until the next one
+        long tryTake() {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                tokens = Math.min(userBurst, tokens + (now - refilledAt) * userTokensPerNano);
+                refilledAt = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return 0;
+                }
+                return userTokensPerNano <= 0 ? Long.MAX_VALUE : (long) Math.ceil((1 - tokens) / userTokensPerNano);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
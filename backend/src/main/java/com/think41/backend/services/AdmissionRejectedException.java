@@ -0,0 +1,18 @@
+package com.think41.backend.services;
+
+import java.time.Duration;
+
+// A chat request turned away by AdmissionControl; the controller answers 429 with Retry-After
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
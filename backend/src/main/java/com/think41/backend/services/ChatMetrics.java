@@ -0,0 +1,73 @@
+package com.think41.backend.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Latency of each stage of a chat turn ({@code chat.stage}, tagged {@code stage}), so a slow turn can
+ * be attributed to loading history, the first LLM call, the tools, a follow-up LLM call or persisting
+ * the answer. Timers publish histograms, so percentiles can be aggregated across instances.
+ */
+@Component
+public class ChatMetrics {
+
+    public enum Stage {
+        HISTORY("history"),             // session lookup, persisting the user's message and building the prompt
+        ROUTE("route"),                 // intent routing and template answers, which may query the database
+        LLM_FIRST("llm_first"),         // the completion answering the user's message
+        TOOLS("tools"),                 // one round of tool calls, run concurrently
+        LLM_FOLLOW_UP("llm_follow_up"), // each completion after tool results
+        PERSIST("persist");             // persisting the answer and touching the session
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Timer firstToken;
+
+    public ChatMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("chat.stage")
+                    .description("Time spent in one stage of a chat turn")
+                    .tag("stage", stage.tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        this.firstToken = Timer.builder("chat.stream.first-token")
+                .description("Time from a streaming chat request to its first answer token")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public <T> T time(Stage stage, Supplier<T> work) {
+        return stageTimers.get(stage).record(work);
+    }
+
+    // From subscription until the stream completes, fails or is cancelled
+    public <T> Flux<T> time(Stage stage, Flux<T> stream) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return stream.doFinally(signal -> sample.stop(stageTimers.get(stage)));
+        });
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void firstToken(Timer.Sample sample) {
+        sample.stop(firstToken);
+    }
+}
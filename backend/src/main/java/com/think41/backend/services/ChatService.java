@@ -3,6 +3,12 @@ package com.think41.backend.services;
 
 import com.think41.backend.DTO.ChatRequest;
 import com.think41.backend.DTO.ChatResponse;
+import com.think41.backend.DTO.ChatMessageView;
+import com.think41.backend.DTO.ChatStreamEvent;
+import com.think41.backend.DTO.ConversationHistoryPage;
+import com.think41.backend.DTO.ConversationListPage;
+import com.think41.backend.DTO.ConversationSessionView;
+import com.think41.backend.DTO.ProductSearchResult;
 import com.think41.backend.entity.ChatMessage;
 import com.think41.backend.entity.ConversationSession;
 import com.think41.backend.entity.User;
@@ -10,31 +16,55 @@ import com.think41.backend.Repo.ChatMessageRepository;
 import com.think41.backend.Repo.ConversationSessionRepository;
 import com.think41.backend.Repo.UserRepository;
 import com.think41.backend.services.GroqApiClient; // Import Groq API Client
-import com.think41.backend.entity.Product; // Assuming you need Product
-import com.think41.backend.Repo.ProductRepository; // Assuming you need ProductRepository
-import com.think41.backend.Repo.OrderRepository; // Assuming you need OrderRepository
-import com.think41.backend.entity.Order; // Assuming you need Order
-
+import com.think41.backend.services.ConversationContextBuilder.PromptContext;
+import com.think41.backend.services.ConversationHistoryCache.HistoryMessage;
+import com.think41.backend.services.ToolCallExtractor.ToolCall;
+import com.think41.backend.services.ChatMetrics.Stage;
+
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern; // For parsing LLM's query requests
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class ChatService {
 
+    private static final Logger log = LoggerFactory.getLogger(ChatService.class);
+
     private final UserRepository userRepository;
     private final ConversationSessionRepository conversationSessionRepository;
     private final ChatMessageRepository chatMessageRepository;
     private final GroqApiClient groqApiClient; // Inject GroqApiClient
-    private final ProductRepository productRepository; // Inject ProductRepository
-    private final OrderRepository orderRepository; // Inject OrderRepository
+    private final TransactionTemplate transactionTemplate;
+    private final ConversationContextBuilder contextBuilder;
+    private final ConversationSummarizer conversationSummarizer;
+    private final ConversationHistoryCache historyCache;
+    private final IntentRouter intentRouter;
+    private final ChatToolService chatTools;
+    private final int maxToolRounds;
+    private final ChatMetrics metrics;
+    private final double logSampleRate;
+    private final int maxHistoryPageSize;
 
     // Define the system prompt for the LLM
-    private static final String SYSTEM_PROMPT = """
+    static final String SYSTEM_PROMPT = """
         You are an intelligent e-commerce assistant.
         Your primary goal is to help users with their shopping inquiries, order statuses, and product information.
 
@@ -66,191 +96,393 @@ public class ChatService {
         Tool Output: Order 54321 is currently 'SHIPPED'.
         Assistant: "Your order 54321 is currently shipped and on its way."
 
+        To answer several things at once (e.g. the status of three orders and a product question), reply with
+        one tool call per line; they are all executed and the results come back together.
+
         Strictly adhere to the tool output format. Do not invent information.
         """;
 
-    // Regex to detect and extract tool calls from LLM response
-    private static final Pattern TOOL_CALL_PATTERN = Pattern.compile("\\{\\s*\"tool\"\\s*:\\s*\"([a-zA-Z_]+)\"\\s*,\\s*\"([a-zA-Z_]+)\"\\s*:\\s*\"?([a-zA-Z0-9 ]+)\"?\\s*\\}");
+    private static final String TOOL_LIMIT_RESPONSE = "I'm sorry, I couldn't gather everything needed to answer that. Could you narrow the question down?";
 
     public ChatService(UserRepository userRepository,
                        ConversationSessionRepository conversationSessionRepository,
                        ChatMessageRepository chatMessageRepository,
                        GroqApiClient groqApiClient,
-                       ProductRepository productRepository,
-                       OrderRepository orderRepository) {
+                       PlatformTransactionManager transactionManager,
+                       ConversationContextBuilder contextBuilder,
+                       ConversationSummarizer conversationSummarizer,
+                       ConversationHistoryCache historyCache,
+                       IntentRouter intentRouter,
+                       ChatToolService chatTools,
+                       @Value("${chat.tools.max-rounds:3}") int maxToolRounds,
+                       ChatMetrics metrics,
+                       @Value("${chat.logging.sample-rate:0.05}") double logSampleRate,
+                       @Value("${chat.history.max-page-size:100}") int maxHistoryPageSize) {
         this.userRepository = userRepository;
         this.conversationSessionRepository = conversationSessionRepository;
         this.chatMessageRepository = chatMessageRepository;
         this.groqApiClient = groqApiClient;
-        this.productRepository = productRepository;
-        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.contextBuilder = contextBuilder;
+        this.conversationSummarizer = conversationSummarizer;
+        this.historyCache = historyCache;
+        this.intentRouter = intentRouter;
+        this.chatTools = chatTools;
+        this.maxToolRounds = maxToolRounds;
+        this.metrics = metrics;
+        this.logSampleRate = logSampleRate;
+        this.maxHistoryPageSize = maxHistoryPageSize;
     }
 
-    @Transactional
+    // Deliberately not @Transactional: the user turn and the AI turn are persisted in two short
+    // transactions, and no JDBC connection is held while waiting for Groq in between.
     public ChatResponse handleChatMessage(ChatRequest request) {
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + request.getUserId()));
-
-        ConversationSession session;
-        if (request.getConversationId() != null) {
-            session = conversationSessionRepository.findById(request.getConversationId())
-                    .orElseThrow(() -> new IllegalArgumentException("Conversation session not found with ID: " + request.getConversationId()));
-            if (!session.getUser().getId().equals(user.getId())) {
-                throw new SecurityException("Unauthorized: Session does not belong to the user.");
-            }
-            if ("CLOSED".equals(session.getStatus()) || "EXPIRED".equals(session.getStatus())) {
-                session.setStatus("ACTIVE");
-                session = conversationSessionRepository.save(session);
-            }
-        } else {
-            session = new ConversationSession(user);
-            session = conversationSessionRepository.save(session);
-        }
+        Turn turn = metrics.time(Stage.HISTORY, () -> startTurn(request));
+        List<Map<String, String>> llmMessages = turn.llmMessages();
 
-        // 1. Persist User's Message
-        int userSequenceNumber = getNextSequenceNumber(session);
-        ChatMessage userMessage = new ChatMessage();
-        userMessage.setSession(session);
-        userMessage.setSenderType(ChatMessage.SenderType.USER);
-        userMessage.setMessageContent(request.getMessage());
-        userMessage.setTimestamp(LocalDateTime.now());
-        userMessage.setSequenceNumber(userSequenceNumber);
-        chatMessageRepository.save(userMessage);
-
-        // 2. Get Conversation History for LLM
-        // Important: fetch messages within the same transaction or ensure they are loaded
-        List<ChatMessage> historyMessages = chatMessageRepository.findBySessionOrderBySequenceNumberAsc(session);
-
-        List<Map<String, String>> llmMessages = new ArrayList<>();
-        llmMessages.add(Map.of("role", "system", "content", SYSTEM_PROMPT)); // System prompt first
-
-        // Add previous messages
-        for (ChatMessage msg : historyMessages) {
-            llmMessages.add(Map.of(
-                    "role", msg.getSenderType().toString().toLowerCase(),
-                    "content", msg.getMessageContent()
-            ));
+        // Unambiguous lookups are answered from a template, without calling Groq
+        Optional<String> templated = metrics.time(Stage.ROUTE, () -> answerWithoutLlm(request.getMessage()));
+        if (templated.isPresent()) {
+            return finishTurn(turn, templated.get());
         }
-        // Add current user message
-        llmMessages.add(Map.of("role", "user", "content", request.getMessage()));
-
 
         // 3. Call Groq API (blocking for simplicity; consider reactive if needed)
-        String llmRawResponse = groqApiClient.getChatCompletion(llmMessages).block(); // .block() for synchronous call
-
-        String finalAiResponseContent;
-        if (llmRawResponse != null && isToolCall(llmRawResponse)) {
-            // LLM wants to use a tool
-            System.out.println("LLM requested tool call: " + llmRawResponse);
-            String toolOutput = executeToolCall(llmRawResponse);
-
-            // Send tool output back to LLM for final response generation
-            llmMessages.add(Map.of("role", "tool", "content", toolOutput)); // "tool" role might vary, check Groq docs if issues
-            llmMessages.add(Map.of("role", "user", "content", "Based on the following tool output, please provide a comprehensive answer: " + toolOutput));
-            finalAiResponseContent = groqApiClient.getChatCompletion(llmMessages).block();
-            System.out.println("LLM final response after tool: " + finalAiResponseContent);
-
-        } else {
-            // LLM provided a direct response or clarifying question
-            finalAiResponseContent = llmRawResponse;
-            System.out.println("LLM direct response: " + finalAiResponseContent);
+        List<Map<String, String>> prompt = llmMessages;
+        String llmRawResponse = metrics.time(Stage.LLM_FIRST, () -> groqApiClient.getChatCompletion(prompt).block()); // .block() for synchronous call
+
+        // Tool loop: every call in a response runs concurrently, and all results go back in one follow-up
+        List<ToolCall> calls;
+        for (int round = 1; !(calls = chatTools.parse(llmRawResponse)).isEmpty(); round++) {
+            if (round > maxToolRounds) {
+                logToolLimit(turn.sessionId(), llmRawResponse);
+                llmRawResponse = TOOL_LIMIT_RESPONSE;
+                break;
+            }
+            logToolCalls(turn.sessionId(), round, calls, llmRawResponse);
+            llmMessages = runTools(llmMessages, llmRawResponse, calls);
+            List<Map<String, String>> followUp = llmMessages;
+            llmRawResponse = metrics.time(Stage.LLM_FOLLOW_UP, () -> groqApiClient.getChatCompletion(followUp).block());
         }
+        String finalAiResponseContent = llmRawResponse;
+        log.debug("LLM final response for session {}: {}", turn.sessionId(), finalAiResponseContent);
 
         // 4. Persist AI's Response
-        int aiSequenceNumber = getNextSequenceNumber(session);
-        ChatMessage aiMessage = new ChatMessage();
-        aiMessage.setSession(session);
-        aiMessage.setSenderType(ChatMessage.SenderType.AI);
-        aiMessage.setMessageContent(finalAiResponseContent != null ? finalAiResponseContent : "I'm sorry, I couldn't generate a response.");
-        aiMessage.setTimestamp(LocalDateTime.now());
-        aiMessage.setSequenceNumber(aiSequenceNumber);
-        chatMessageRepository.save(aiMessage);
-
-        session.setEndTime(LocalDateTime.now()); // Update session end time
-        conversationSessionRepository.save(session);
-
-        return new ChatResponse(
-                session.getId(),
-                aiMessage.getId(),
-                aiMessage.getMessageContent(),
-                aiMessage.getTimestamp(),
-                aiMessage.getSenderType()
-        );
+        return finishTurn(turn, finalAiResponseContent);
     }
 
-    private int getNextSequenceNumber(ConversationSession session) {
-        return chatMessageRepository.findBySessionOrderBySequenceNumberAsc(session)
-                .stream()
-                .map(ChatMessage::getSequenceNumber)
-                .max(Integer::compare)
-                .orElse(0) + 1; // Start from 1 if no messages, else max + 1
+    /**
+     * Streaming variant of {@link #handleChatMessage}: the user's message is persisted before this
+     * method returns (so validation errors surface immediately), then the answer is emitted token by
+     * token as Groq produces it and the AI message is persisted when the stream completes.
+     */
+    public Flux<ChatStreamEvent> streamChatMessage(ChatRequest request) {
+        Timer.Sample untilFirstToken = metrics.start();
+        Turn turn = metrics.time(Stage.HISTORY, () -> startTurn(request));
+        StringBuilder answer = new StringBuilder();
+        AtomicBoolean finished = new AtomicBoolean(); // the AI turn is persisted at most once
+
+        Flux<String> answerTokens = Flux.defer(() -> metrics.time(Stage.ROUTE, () -> answerWithoutLlm(request.getMessage()))
+                        .map(Flux::just)
+                        .orElseGet(() -> streamWithTools(turn.sessionId(), turn.llmMessages(), 1)))
+                .subscribeOn(Schedulers.boundedElastic()); // routing may query the database
+        return answerTokens
+                .doOnNext(token -> {
+                    if (answer.length() == 0 && !token.isEmpty()) {
+                        metrics.firstToken(untilFirstToken);
+                    }
+                    answer.append(token);
+                })
+                .map(ChatStreamEvent::token)
+                .concatWith(Mono.fromCallable(() -> ChatStreamEvent.done(finishTurnOnce(turn, finished, answer.toString())))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .onErrorResume(e -> {
+                    log.atWarn().addKeyValue("sessionId", turn.sessionId())
+                            .log("Error streaming chat response: {}", e.getMessage());
+                    // Still record the AI turn so the conversation history stays paired, unless it was
+                    // persisting the answer that failed
+                    return Mono.fromCallable(() -> {
+                                finishTurnOnce(turn, finished, answer.length() > 0 ? answer.toString() : null);
+                                return ChatStreamEvent.error("The response could not be completed: " + e.getMessage());
+                            })
+                            .subscribeOn(Schedulers.boundedElastic());
+                })
+                // The client went away: keep what it was shown, off the cancelling thread
+                .doOnCancel(() -> Schedulers.boundedElastic().schedule(() -> {
+                    try {
+                        finishTurnOnce(turn, finished, answer.length() > 0 ? answer.toString() : null);
+                    } catch (RuntimeException e) {
+                        log.atWarn().addKeyValue("sessionId", turn.sessionId())
+                                .log("Could not persist a cancelled chat response: {}", e.getMessage());
+                    }
+                }));
+    }
+
+    // Returns null when the turn was already persisted, or an attempt to persist it failed
+    private ChatResponse finishTurnOnce(Turn turn, AtomicBoolean finished, String aiResponseContent) {
+        return finished.compareAndSet(false, true) ? finishTurn(turn, aiResponseContent) : null;
+    }
+
+    private Optional<String> answerWithoutLlm(String message) {
+        return intentRouter.route(message).map(intent -> switch (intent) {
+            case IntentRouter.OrderStatusIntent order ->
+                    chatTools.orderStatus(order.orderId());
+            case IntentRouter.ProductIntent match -> {
+                ProductSearchResult p = match.product();
+                yield String.format("Yes, we have the %s by %s for $%.2f, in %s.",
+                        p.getName(), p.getBrand(), p.getRetailPrice(), p.getCategory());
+            }
+        });
+    }
+
+    // Text is forwarded as it streams, except for a JSON object that is still being parsed and
+    // could turn out to be a tool call; tool calls themselves are never shown to the user.
+    private Flux<String> streamWithTools(Long sessionId, List<Map<String, String>> llmMessages, int round) {
+        return Flux.defer(() -> {
+            ToolCallExtractor.Session extractor = new ToolCallExtractor.Session();
+            StringBuilder raw = new StringBuilder();
+
+            Stage stage = round == 1 ? Stage.LLM_FIRST : Stage.LLM_FOLLOW_UP;
+            Flux<String> firstPass = metrics.time(stage, groqApiClient.streamChatCompletion(llmMessages))
+                    .concatMap(token -> {
+                        raw.append(token);
+                        extractor.append(token);
+                        String text = extractor.drainText();
+                        return text.isEmpty() ? Flux.<String>empty() : Flux.just(text);
+                    });
+
+            Flux<String> afterFirstPass = Flux.defer(() -> {
+                extractor.finish();
+                String rest = extractor.drainText();
+                if (!extractor.hasToolCalls()) {
+                    return rest.isEmpty() ? Flux.<String>empty() : Flux.just(rest);
+                }
+                String llmRawResponse = raw.toString();
+                if (round > maxToolRounds) {
+                    logToolLimit(sessionId, llmRawResponse);
+                    return Flux.just(TOOL_LIMIT_RESPONSE);
+                }
+                List<ToolCall> calls = chatTools.dedupe(extractor.toolCalls());
+                logToolCalls(sessionId, round, calls, llmRawResponse);
+                return streamWithTools(sessionId, runTools(llmMessages, llmRawResponse, calls), round + 1);
+            }).subscribeOn(Schedulers.boundedElastic()); // tool calls query the database
+
+            return firstPass.concatWith(afterFirstPass);
+        });
+    }
+
+    private List<Map<String, String>> runTools(List<Map<String, String>> llmMessages, String llmRawResponse,
+                                               List<ToolCall> calls) {
+        return metrics.time(Stage.TOOLS,
+                () -> ChatToolService.withToolResults(llmMessages, llmRawResponse, calls, chatTools.executeAll(calls)));
+    }
+
+    // Every turn with tools would be too much at INFO; a sample shows what the model asks for.
+    // The raw responses, which may include customer details, are only logged at DEBUG.
+    private void logToolCalls(Long sessionId, int round, List<ToolCall> calls, String llmRawResponse) {
+        if (sampled()) {
+            log.atInfo()
+                    .addKeyValue("sessionId", sessionId)
+                    .addKeyValue("round", round)
+                    .addKeyValue("tools", calls.stream().map(ToolCall::name).toList())
+                    .log("LLM requested tool calls");
+        }
+        log.debug("LLM tool call response for session {}: {}", sessionId, llmRawResponse);
+    }
+
+    private void logToolLimit(Long sessionId, String llmRawResponse) {
+        log.atWarn()
+                .addKeyValue("sessionId", sessionId)
+                .addKeyValue("maxRounds", maxToolRounds)
+                .log("LLM still requesting tools after the last round");
+        log.debug("LLM tool call response for session {}: {}", sessionId, llmRawResponse);
     }
 
-    // --- Tool Use Simulation Logic ---
-    private boolean isToolCall(String llmResponse) {
-        return llmResponse != null && llmResponse.trim().startsWith("{\"tool\":");
+    private boolean sampled() {
+        return logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate;
     }
 
-    private String executeToolCall(String llmResponse) {
-        Matcher matcher = TOOL_CALL_PATTERN.matcher(llmResponse.trim());
-        if (matcher.find()) {
-            String toolName = matcher.group(1);
-            String paramName = matcher.group(2);
-            String paramValue = matcher.group(3);
-
-            try {
-                switch (toolName) {
-                    case "search_products":
-                        return searchProducts(paramValue);
-                    case "check_order_status":
-                        return checkOrderStatus(Long.parseLong(paramValue));
-                    default:
-                        return "Unknown tool: " + toolName;
+    // State carried from the user-turn transaction to the AI-turn transaction
+    private record Turn(Long sessionId, List<Map<String, String>> llmMessages,
+                        String summary, int summarizedThrough, Integer windowStartSequence, long startNanos) {
+    }
+
+    // Resolves the session, persists the user's message and builds the prompt, all in one short transaction
+    private Turn startTurn(ChatRequest request) {
+        long startNanos = System.nanoTime();
+        return transactionTemplate.execute(status -> {
+            User user = userRepository.findById(request.getUserId())
+                    .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + request.getUserId()));
+
+            ConversationSession session;
+            if (request.getConversationId() != null) {
+                session = conversationSessionRepository.findById(request.getConversationId())
+                        .orElseThrow(() -> new IllegalArgumentException("Conversation session not found with ID: " + request.getConversationId()));
+                if (!session.getUser().getId().equals(user.getId())) {
+                    throw new SecurityException("Unauthorized: Session does not belong to the user.");
+                }
+                if ("CLOSED".equals(session.getStatus()) || "EXPIRED".equals(session.getStatus())) {
+                    session.setStatus("ACTIVE");
+                    session = conversationSessionRepository.save(session);
                 }
-            } catch (NumberFormatException e) {
-                return "Invalid number format for tool parameter: " + paramValue;
-            } catch (Exception e) {
-                return "Error executing tool '" + toolName + "': " + e.getMessage();
+            } else {
+                session = new ConversationSession(user);
+                session = conversationSessionRepository.save(session);
+                historyCache.startSession(session.getId());
             }
+
+            // 1. Persist User's Message
+            int userSequenceNumber = getNextSequenceNumber(session);
+            ChatMessage userMessage = new ChatMessage();
+            userMessage.setSession(session);
+            userMessage.setSenderType(ChatMessage.SenderType.USER);
+            userMessage.setMessageContent(request.getMessage());
+            userMessage.setTimestamp(LocalDateTime.now());
+            userMessage.setSequenceNumber(userSequenceNumber);
+            chatMessageRepository.save(userMessage);
+
+            // 2. Build the prompt: system prompt, rolling summary, then the newest messages that fit the
+            // token budget. The user's message just saved is the newest one, so it is not appended again.
+            // Recent history comes from the in-process cache; only a miss reads chat_messages.
+            evictOnRollback(session.getId());
+            historyCache.append(session.getId(), userMessage);
+            int summarizedThrough = session.getSummarizedThroughSequence() != null ? session.getSummarizedThroughSequence() : 0;
+            List<HistoryMessage> recentMessages = unsummarizedHistory(session.getId(), summarizedThrough,
+                    historyCache.recentMessages(session.getId()));
+            PromptContext context = contextBuilder.build(SYSTEM_PROMPT, session.getSummary(), summarizedThrough, recentMessages);
+
+            return new Turn(session.getId(), context.messages(), session.getSummary(), summarizedThrough, context.windowStartSequence(), startNanos);
+        });
+    }
+
+    // Persists the AI's answer and touches the session, in its own short transaction
+    private ChatResponse finishTurn(Turn turn, String aiResponseContent) {
+        Long sessionId = turn.sessionId();
+        ChatResponse response = metrics.time(Stage.PERSIST, () -> transactionTemplate.execute(status -> {
+            ConversationSession session = conversationSessionRepository.findById(sessionId)
+                    .orElseThrow(() -> new IllegalArgumentException("Conversation session not found with ID: " + sessionId));
+
+            int aiSequenceNumber = getNextSequenceNumber(session);
+            ChatMessage aiMessage = new ChatMessage();
+            aiMessage.setSession(session);
+            aiMessage.setSenderType(ChatMessage.SenderType.AI);
+            aiMessage.setMessageContent(aiResponseContent != null ? aiResponseContent : "I'm sorry, I couldn't generate a response.");
+            aiMessage.setTimestamp(LocalDateTime.now());
+            aiMessage.setSequenceNumber(aiSequenceNumber);
+            chatMessageRepository.save(aiMessage);
+            evictOnRollback(sessionId);
+            historyCache.append(sessionId, aiMessage);
+
+            session.setEndTime(LocalDateTime.now()); // Update session end time
+            conversationSessionRepository.save(session);
+
+            return new ChatResponse(
+                    session.getId(),
+                    aiMessage.getId(),
+                    aiMessage.getMessageContent(),
+                    aiMessage.getTimestamp(),
+                    aiMessage.getSenderType()
+            );
+        }));
+        if (sampled()) {
+            log.atInfo()
+                    .addKeyValue("sessionId", sessionId)
+                    .addKeyValue("messageId", response.getMessageId())
+                    .addKeyValue("durationMs", (System.nanoTime() - turn.startNanos()) / 1_000_000)
+                    .log("Chat turn completed");
         }
-        return "Could not parse tool call from LLM response.";
+        // Fold messages that slid out of the prompt window into the summary, off the request path
+        conversationSummarizer.onTurnCompleted(sessionId, turn.summary(), turn.summarizedThrough(), turn.windowStartSequence());
+        return response;
     }
 
-    // --- Database Query Methods ---
-    @Transactional(readOnly = true)
-    private String searchProducts(String query) {
-        // Search products by name or category
-        List<Product> products = productRepository.findByNameContainingIgnoreCaseOrCategoryContainingIgnoreCase(query, query);
-        if (products.isEmpty()) {
-            return "No products found matching '" + query + "'.";
+    // The cache keeps only the newest messages; when the summary lags further behind than that, the
+    // messages in between are read from chat_messages so the prompt still covers them
+    private List<HistoryMessage> unsummarizedHistory(Long sessionId, int summarizedThrough, List<HistoryMessage> cached) {
+        if (cached.isEmpty() || cached.get(0).sequenceNumber() <= summarizedThrough + 1) {
+            return cached;
+        }
+        int oldestCached = cached.get(0).sequenceNumber();
+        List<HistoryMessage> history = new ArrayList<>();
+        for (ChatMessage message : chatMessageRepository.findBySessionIdAndSequenceNumberBetweenOrderBySequenceNumberAsc(
+                sessionId, summarizedThrough + 1, oldestCached - 1, Pageable.unpaged())) {
+            history.add(HistoryMessage.of(message));
         }
-        return products.stream()
-                .limit(5) // Limit results for brevity in response
-                .map(p -> String.format("%s (Brand: %s, Price: $%.2f, Category: %s)",
-                        p.getName(), p.getBrand(), p.getRetailPrice(), p.getCategory()))
-                .collect(Collectors.joining("\n- ", "Found the following products:\n- ", ""));
+        history.addAll(cached);
+        return history;
+    }
+
+    // The cache is written before commit, so a rolled-back turn must not leave its message behind
+    private void evictOnRollback(Long sessionId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    historyCache.invalidate(sessionId);
+                }
+            }
+        });
     }
 
+    // O(1) and safe under concurrent turns: must run inside the caller's transaction so the
+    // counter row stays locked until the message using the number is committed
+    private int getNextSequenceNumber(ConversationSession session) {
+        conversationSessionRepository.incrementSequenceNumber(session.getId());
+        return conversationSessionRepository.findLastSequenceNumber(session.getId());
+    }
+
+    /**
+     * One page of a session's history in ascending sequence order, read as views rather than entities.
+     * Without a cursor this is the newest page; {@code before} pages back through older messages and
+     * {@code after} returns the ones that came later, with a further {@code after} cursor only while
+     * more remain.
+     *
+     * @param limit page size, capped at {@code chat.history.max-page-size}
+     */
     @Transactional(readOnly = true)
-    private String checkOrderStatus(Long orderId) {
-        Optional<Order> orderOptional = orderRepository.findById(orderId);
-        if (orderOptional.isEmpty()) {
-            return "Order with ID " + orderId + " not found.";
+    public ConversationHistoryPage getConversationHistory(Long sessionId, Integer before, Integer after, int limit) {
+        ConversationSessionView session = conversationSessionRepository.findViewById(sessionId)
+                .orElseThrow(() -> new IllegalArgumentException("Conversation session not found with ID: " + sessionId));
+        int size = historyPageSize(limit);
+        // One row more than the page tells whether anything lies beyond it
+        PageRequest window = PageRequest.of(0, size + 1);
+
+        if (after != null) {
+            List<ChatMessageView> oldestFirst = chatMessageRepository.findViewsAfter(sessionId, after, window);
+            boolean hasNewer = oldestFirst.size() > size;
+            List<ChatMessageView> messages = oldestFirst.subList(0, Math.min(size, oldestFirst.size()));
+            Integer olderCursor = after > 0 ? (messages.isEmpty() ? after + 1 : messages.get(0).getSequenceNumber()) : null;
+            Integer newerCursor = hasNewer ? messages.get(messages.size() - 1).getSequenceNumber() : null;
+            return new ConversationHistoryPage(session, messages, olderCursor, newerCursor);
         }
-        Order order = orderOptional.get();
-        return String.format("Order %d is currently '%s' and was created on %s. It contains %d items.",
-                order.getId(), order.getStatus(), order.getCreatedAt().toLocalDate(), order.getNumOfItem());
+
+        List<ChatMessageView> newestFirst = chatMessageRepository.findViewsBefore(sessionId,
+                before != null ? before : Integer.MAX_VALUE, window);
+        boolean hasOlder = newestFirst.size() > size;
+        List<ChatMessageView> messages = new ArrayList<>(newestFirst.subList(0, Math.min(size, newestFirst.size())));
+        Collections.reverse(messages);
+        Integer olderCursor = hasOlder ? messages.get(0).getSequenceNumber() : null;
+        Integer newerCursor = !messages.isEmpty() ? messages.get(messages.size() - 1).getSequenceNumber()
+                : before != null ? before - 1 : null;
+        return new ConversationHistoryPage(session, messages, olderCursor, newerCursor);
     }
 
-    // You might also want a method to retrieve conversation history
+    /**
+     * The user's sessions, newest first, one page at a time.
+     *
+     * @param size page size, capped at {@code chat.history.max-page-size}
+     */
     @Transactional(readOnly = true)
-    public ConversationSession getConversationHistory(Long sessionId) {
-        return conversationSessionRepository.findById(sessionId)
-                .map(session -> {
-                    // Eagerly fetch messages within the transaction to avoid LazyInitializationException
-                    session.getMessages().size();
-                    return session;
-                })
-                .orElseThrow(() -> new IllegalArgumentException("Conversation session not found with ID: " + sessionId));
+    public ConversationListPage listConversations(Long userId, int page, int size) {
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found with ID: " + userId);
+        }
+        int pageSize = historyPageSize(size);
+        Slice<ConversationSessionView> sessions = conversationSessionRepository.findByUserOrderByStartTimeDesc(
+                userRepository.getReferenceById(userId), PageRequest.of(Math.max(0, page), pageSize));
+        return new ConversationListPage(sessions.getContent(), sessions.getNumber(), pageSize, sessions.hasNext());
+    }
+
+    private int historyPageSize(int requested) {
+        return Math.max(1, Math.min(requested, maxHistoryPageSize));
     }
 }
\ No newline at end of file
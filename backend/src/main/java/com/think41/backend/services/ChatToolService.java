@@ -0,0 +1,216 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ProductSearchResult;
+import com.think41.backend.Repo.OrderRepository;
+import com.think41.backend.entity.Order;
+import com.think41.backend.services.ToolCallExtractor.ToolCall;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * The tools the LLM can call ({@code search_products}, {@code check_order_status}): finds every
+ * call in a response, runs them concurrently on a bounded pool and formats the results as one
+ * follow-up message.
+ */
+@Component
+public class ChatToolService {
+
+    private static final Set<String> TOOLS = Set.of("search_products", "check_order_status");
+
+    private final ProductSearch productSearch;
+    private final OrderRepository orderRepository;
+    private final ToolResultCache toolResultCache;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final MeterRegistry meterRegistry;
+
+    public ChatToolService(ProductSearch productSearch,
+                           OrderRepository orderRepository,
+                           ToolResultCache toolResultCache,
+                           @Value("${chat.tools.max-concurrency:8}") int maxConcurrency,
+                           @Value("${chat.tools.timeout:10s}") Duration timeout,
+                           MeterRegistry meterRegistry) {
+        this.productSearch = productSearch;
+        this.orderRepository = orderRepository;
+        this.toolResultCache = toolResultCache;
+        this.timeout = timeout;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadCount = new AtomicInteger();
+        // Bounded in threads and queue; when both are full the calling request runs the tool itself
+        this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxConcurrency * 16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "chat-tool-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    // A response with a tool call anywhere in it (even after some prose) asks for tool results first
+    public boolean isToolCall(String llmResponse) {
+        return !parse(llmResponse).isEmpty();
+    }
+
+    /**
+     * @return every tool call in the response, in order; duplicates are dropped
+     */
+    public List<ToolCall> parse(String llmResponse) {
+        return llmResponse == null ? List.of() : dedupe(ToolCallExtractor.extract(llmResponse));
+    }
+
+    public List<ToolCall> dedupe(List<ToolCall> extracted) {
+        List<ToolCall> calls = new ArrayList<>();
+        for (ToolCall call : extracted) {
+            if (!calls.contains(call)) {
+                calls.add(call);
+            }
+        }
+        return calls;
+    }
+
+    /**
+     * Runs the calls concurrently and waits for all of them, at most {@code chat.tools.timeout}.
+     *
+     * @return one output per call, in the same order
+     */
+    public List<String> executeAll(List<ToolCall> calls) {
+        if (calls.size() == 1) {
+            return List.of(execute(calls.get(0)));
+        }
+        // FutureTasks, unlike CompletableFutures, interrupt the tool's thread when cancelled
+        List<Future<String>> futures = calls.stream()
+                .map(call -> executor.submit(() -> execute(call)))
+                .toList();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<String> outputs = new ArrayList<>(calls.size());
+        for (int i = 0; i < calls.size(); i++) {
+            try {
+                outputs.add(futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                futures.get(i).cancel(true);
+                outputs.add(counted(calls.get(i), "timeout", "Tool '" + calls.get(i).name() + "' timed out."));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.get(i).cancel(true);
+                outputs.add(counted(calls.get(i), "interrupted", "Tool '" + calls.get(i).name() + "' was interrupted."));
+            } catch (ExecutionException e) {
+                // execute() turns exceptions into outputs, so only an Error thrown by a tool gets here
+                outputs.add(counted(calls.get(i), "error", "Error executing tool '" + calls.get(i).name() + "': " + e.getCause()));
+            }
+        }
+        return outputs;
+    }
+
+    public String execute(ToolCall call) {
+        // Each tool takes one argument; the model doesn't always use the documented parameter name
+        String value = call.arguments().size() == 1 ? call.firstArgument() : null;
+        try {
+            switch (call.name()) {
+                case "search_products":
+                    value = Optional.ofNullable(call.argument("query")).orElse(value);
+                    if (value == null || value.isBlank()) {
+                        return counted(call, "invalid", "Missing 'query' for tool 'search_products'.");
+                    }
+                    return counted(call, "success", toolResultCache.searchProducts(value.strip(), this::searchProducts));
+                case "check_order_status":
+                    value = Optional.ofNullable(call.argument("order_id")).orElse(value);
+                    if (value == null) {
+                        return counted(call, "invalid", "Missing 'order_id' for tool 'check_order_status'.");
+                    }
+                    return counted(call, "success", orderStatus(Long.parseLong(value.strip().replaceFirst("^#", ""))));
+                default:
+                    return counted(call, "invalid", "Unknown tool: " + call.name());
+            }
+        } catch (NumberFormatException e) {
+            return counted(call, "invalid", "Invalid number format for tool parameter: " + value);
+        } catch (Exception e) {
+            return counted(call, "error", "Error executing tool '" + call.name() + "': " + e.getMessage());
+        }
+    }
+
+    // Tool names come from the LLM, so anything but a known tool is tagged "unknown" to bound the series
+    private String counted(ToolCall call, String outcome, String output) {
+        Counter.builder("chat.tool.invocations")
+                .description("Tool calls requested by the LLM, by tool and outcome")
+                .tag("tool", TOOLS.contains(call.name()) ? call.name() : "unknown")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+        return output;
+    }
+
+    public String orderStatus(long orderId) {
+        return toolResultCache.orderStatus(orderId, this::checkOrderStatus);
+    }
+
+    /**
+     * The follow-up request: the conversation so far, the LLM's tool calls, then all their results in one message.
+     */
+    public static List<Map<String, String>> withToolResults(List<Map<String, String>> llmMessages, String llmResponse,
+                                                            List<ToolCall> calls, List<String> outputs) {
+        Map<String, String> results = new LinkedHashMap<>();
+        for (int i = 0; i < calls.size(); i++) {
+            ToolCall call = calls.get(i);
+            results.put(call.name() + call.arguments(), outputs.get(i));
+        }
+        List<Map<String, String>> followUp = new ArrayList<>(llmMessages);
+        followUp.add(Map.of("role", "assistant", "content", llmResponse.strip()));
+        followUp.add(Map.of("role", "user", "content", results.entrySet().stream()
+                .map(result -> result.getKey() + ":\n" + result.getValue())
+                .collect(Collectors.joining("\n\n", "Tool output:\n\n",
+                        "\n\nUsing these results, answer my previous question. Only call more tools if something is still missing."))));
+        return followUp;
+    }
+
+    // --- Database Query Methods ---
+    private String searchProducts(String query) {
+        // Ranked search over name, brand, category and department; only the top 5 are fetched
+        return formatProducts(query, productSearch.search(query, 5));
+    }
+
+    static String formatProducts(String query, List<ProductSearchResult> products) {
+        if (products.isEmpty()) {
+            return "No products found matching '" + query + "'.";
+        }
+        return products.stream()
+                .map(p -> String.format("%s (Brand: %s, Price: $%.2f, Category: %s)",
+                        p.getName(), p.getBrand(), p.getRetailPrice(), p.getCategory()))
+                .collect(Collectors.joining("\n- ", "Found the following products:\n- ", ""));
+    }
+
+    private String checkOrderStatus(Long orderId) {
+        Optional<Order> orderOptional = orderRepository.findById(orderId);
+        if (orderOptional.isEmpty()) {
+            return "Order with ID " + orderId + " not found.";
+        }
+        Order order = orderOptional.get();
+        return String.format("Order %d is currently '%s' and was created on %s. It contains %d items.",
+                order.getId(), order.getStatus(), order.getCreatedAt(), order.getNumOfItem());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
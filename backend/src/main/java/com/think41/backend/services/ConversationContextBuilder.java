@@ -0,0 +1,97 @@
+package com.think41.backend.services;
+
+import com.think41.backend.entity.ChatMessage;
+import com.think41.backend.services.ConversationHistoryCache.HistoryMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the message list sent to the LLM for one turn within a fixed token budget:
+ * the system prompt, the session's rolling summary of older turns (if any), then as many of the
+ * newest messages as still fit, verbatim. Prompt size therefore stays bounded however long the
+ * conversation runs; whatever falls out of the window is folded into the summary by
+ * {@link ConversationSummarizer}. The budget is soft: a message the summary does not cover yet is
+ * always sent, so nothing drops out of the model's view while a fold is pending or has failed.
+ */
+@Component
+public class ConversationContextBuilder {
+
+    private final int tokenBudget;
+    private final int maxRecentMessages;
+
+    public ConversationContextBuilder(@Value("${chat.context.token-budget:3000}") int tokenBudget,
+                                      @Value("${chat.context.max-recent-messages:30}") int maxRecentMessages) {
+        this.tokenBudget = tokenBudget;
+        this.maxRecentMessages = maxRecentMessages;
+    }
+
+    /**
+     * @return how many of the newest messages a turn needs to load at most
+     */
+    public int maxRecentMessages() {
+        return maxRecentMessages;
+    }
+
+    /**
+     * @param systemPrompt   instructions that always go first
+     * @param summary           rolling summary of earlier turns, or null
+     * @param summarizedThrough last sequence number covered by the summary (0 if none); every later
+     *                          message in {@code recentMessages} is included, even over the budget
+     * @param recentMessages    newest messages of the session in ascending sequence order; the last one
+     *                          (the user's current message) is always included
+     */
+    public PromptContext build(String systemPrompt, String summary, int summarizedThrough, List<HistoryMessage> recentMessages) {
+        List<Map<String, String>> prompt = new ArrayList<>();
+        prompt.add(Map.of("role", "system", "content", systemPrompt));
+        int remaining = tokenBudget - estimateTokens(systemPrompt);
+
+        if (summary != null && !summary.isBlank()) {
+            String summaryContent = "Summary of the earlier conversation:\n" + summary;
+            prompt.add(Map.of("role", "system", "content", summaryContent));
+            remaining -= estimateTokens(summaryContent);
+        }
+
+        // Walk back from the newest message until the budget is spent
+        int first = recentMessages.size();
+        while (first > 0) {
+            int cost = estimateTokens(recentMessages.get(first - 1).content());
+            if (cost > remaining && first < recentMessages.size()) {
+                break;
+            }
+            remaining -= cost;
+            first--;
+        }
+        Integer windowStart = first < recentMessages.size() ? recentMessages.get(first).sequenceNumber() : null;
+
+        // Older messages the summary does not cover yet still go in, until they have been folded
+        while (first > 0 && recentMessages.get(first - 1).sequenceNumber() > summarizedThrough) {
+            first--;
+        }
+        for (HistoryMessage message : recentMessages.subList(first, recentMessages.size())) {
+            prompt.add(Map.of("role", roleOf(message.senderType()), "content", message.content()));
+        }
+        return new PromptContext(prompt, windowStart);
+    }
+
+    // OpenAI-compatible APIs call the model's side "assistant"
+    static String roleOf(ChatMessage.SenderType senderType) {
+        return senderType == ChatMessage.SenderType.AI ? "assistant" : "user";
+    }
+
+    // Rough count for English text with Llama-family tokenizers (~4 characters per token) plus per-message framing
+    static int estimateTokens(String text) {
+        return 4 + (text == null ? 0 : (text.length() + 3) / 4);
+    }
+
+    /**
+     * @param messages            the prompt to send
+     * @param windowStartSequence sequence number of the oldest message that fit the token budget, or null
+     *                            if none; anything older that was sent is due to be folded into the summary
+     */
+    public record PromptContext(List<Map<String, String>> messages, Integer windowStartSequence) {
+    }
+}
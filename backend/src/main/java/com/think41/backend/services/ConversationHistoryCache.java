@@ -0,0 +1,139 @@
+package com.think41.backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.think41.backend.Repo.ChatMessageRepository;
+import com.think41.backend.entity.ChatMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process cache of the newest messages of active conversations, so a steady-state chat turn
+ * builds its prompt without reading {@code chat_messages}.
+ * <p>
+ * Entries hold at most {@code chat.context.max-recent-messages} messages per session, are evicted
+ * by session count and idle time, and are kept current by {@link #append} as turns are written.
+ * A miss loads the newest page from the database. Hit/miss/eviction counts are published as the
+ * {@code cache.*} meters tagged {@code cache=chat.history}.
+ */
+@Component
+public class ConversationHistoryCache {
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final Cache<Long, SessionHistory> cache;
+    private final int maxMessagesPerSession;
+
+    public ConversationHistoryCache(ChatMessageRepository chatMessageRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${chat.history-cache.max-sessions:10000}") long maxSessions,
+                                    @Value("${chat.history-cache.idle-timeout:30m}") Duration idleTimeout,
+                                    @Value("${chat.context.max-recent-messages:30}") int maxMessagesPerSession) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.maxMessagesPerSession = maxMessagesPerSession;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "chat.history");
+    }
+
+    /**
+     * Newest messages of the session in ascending sequence order. Call inside the turn's
+     * transaction, so a miss also sees the message the turn has just saved.
+     */
+    public List<HistoryMessage> recentMessages(Long sessionId) {
+        return cache.get(sessionId, this::load).snapshot();
+    }
+
+    // A brand-new session has no history, so there is nothing to load
+    public void startSession(Long sessionId) {
+        cache.put(sessionId, new SessionHistory(maxMessagesPerSession));
+    }
+
+    /**
+     * Adds a message just written to the database. Sessions that are not cached are left alone;
+     * they are loaded on their next read. Blocks while the same session is being loaded, so the
+     * message cannot be lost between the load's query and its insertion into the cache.
+     */
+    public void append(Long sessionId, ChatMessage message) {
+        HistoryMessage entry = HistoryMessage.of(message);
+        cache.asMap().computeIfPresent(sessionId, (id, history) -> {
+            history.add(entry);
+            return history;
+        });
+    }
+
+    // For writes that were rolled back after being appended
+    public void invalidate(Long sessionId) {
+        cache.invalidate(sessionId);
+    }
+
+    private SessionHistory load(Long sessionId) {
+        List<ChatMessage> newestFirst = chatMessageRepository.findBySessionIdOrderBySequenceNumberDesc(
+                sessionId, PageRequest.of(0, maxMessagesPerSession));
+        SessionHistory history = new SessionHistory(maxMessagesPerSession);
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            history.add(HistoryMessage.of(newestFirst.get(i)));
+        }
+        return history;
+    }
+
+    // Immutable copy of the fields a prompt needs, so cached entries never hold JPA entities
+    public record HistoryMessage(int sequenceNumber, ChatMessage.SenderType senderType, String content) {
+        static HistoryMessage of(ChatMessage message) {
+            return new HistoryMessage(message.getSequenceNumber(), message.getSenderType(), message.getMessageContent());
+        }
+    }
+
+    // The newest messages of one session, ascending by sequence number; concurrent turns may append out of order
+    private static final class SessionHistory {
+        private final int capacity;
+        private final List<HistoryMessage> messages = new ArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock(); // not a monitor, so a virtual thread never pins on it
+
+        SessionHistory(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void add(HistoryMessage message) {
+            lock.lock();
+            try {
+                int index = messages.size();
+                while (index > 0 && messages.get(index - 1).sequenceNumber() >= message.sequenceNumber()) {
+                    if (messages.get(index - 1).sequenceNumber() == message.sequenceNumber()) {
+                        return; // already cached
+                    }
+                    index--;
+                }
+                if (index == 0 && messages.size() >= capacity) {
+                    return; // older than everything a full window keeps
+                }
+                messages.add(index, message);
+                if (messages.size() > capacity) {
+                    messages.remove(0);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<HistoryMessage> snapshot() {
+            lock.lock();
+            try {
+                return Collections.unmodifiableList(new ArrayList<>(messages));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
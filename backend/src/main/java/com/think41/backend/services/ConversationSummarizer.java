@@ -0,0 +1,103 @@
+package com.think41.backend.services;
+
+import com.think41.backend.Repo.ChatMessageRepository;
+import com.think41.backend.Repo.ConversationSessionRepository;
+import com.think41.backend.entity.ChatMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the rolling summary stored on each {@code ConversationSession}.
+ * <p>
+ * Messages that slid out of the prompt window are folded into the summary in batches, by one extra
+ * LLM call that runs after the turn has been answered, so it never adds latency to a chat request.
+ */
+@Component
+public class ConversationSummarizer {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationSummarizer.class);
+
+    private static final String SUMMARY_PROMPT = """
+        You maintain a running summary of a conversation between a customer and an e-commerce assistant.
+        Merge the new messages into the existing summary. Keep order IDs, product names, brands, prices,
+        stated preferences and any open questions; drop greetings and small talk.
+        Reply with the updated summary only, in at most 150 words.
+        """;
+
+    private final GroqApiClient groqApiClient;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ConversationSessionRepository conversationSessionRepository;
+    private final int batchSize;
+    private final int maxMessagesPerFold;
+    private final Set<Long> sessionsInProgress = ConcurrentHashMap.newKeySet();
+
+    public ConversationSummarizer(GroqApiClient groqApiClient,
+                                  ChatMessageRepository chatMessageRepository,
+                                  ConversationSessionRepository conversationSessionRepository,
+                                  @Value("${chat.context.summarize-batch:6}") int batchSize,
+                                  @Value("${chat.context.max-messages-per-summary:50}") int maxMessagesPerFold) {
+        this.groqApiClient = groqApiClient;
+        this.chatMessageRepository = chatMessageRepository;
+        this.conversationSessionRepository = conversationSessionRepository;
+        this.batchSize = batchSize;
+        this.maxMessagesPerFold = maxMessagesPerFold;
+    }
+
+    /**
+     * Schedules a fold if at least {@code chat.context.summarize-batch} messages older than the
+     * prompt's token budget window are not covered by the summary yet. Returns immediately; until the
+     * fold lands, {@link ConversationContextBuilder} keeps sending those messages verbatim.
+     *
+     * @param summarizedThrough   last sequence number already in the summary (0 if none)
+     * @param windowStartSequence oldest message of this turn that fit the token budget, or null
+     */
+    public void onTurnCompleted(Long sessionId, String currentSummary, int summarizedThrough, Integer windowStartSequence) {
+        if (windowStartSequence == null) {
+            return;
+        }
+        int through = windowStartSequence - 1;
+        if (through - summarizedThrough < batchSize || !sessionsInProgress.add(sessionId)) {
+            return;
+        }
+
+        Mono.fromCallable(() -> chatMessageRepository.findBySessionIdAndSequenceNumberBetweenOrderBySequenceNumberAsc(
+                        sessionId, summarizedThrough + 1, through, PageRequest.of(0, maxMessagesPerFold)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .filter(messages -> !messages.isEmpty())
+                .flatMap(messages -> groqApiClient.getChatCompletion(summaryRequest(currentSummary, messages))
+                        .filter(summary -> !summary.isBlank())
+                        .map(summary -> Map.entry(summary.trim(), messages.get(messages.size() - 1).getSequenceNumber())))
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(folded -> conversationSessionRepository.updateSummary(sessionId, folded.getKey(), folded.getValue()))
+                .doFinally(signal -> sessionsInProgress.remove(sessionId))
+                .subscribe(
+                        folded -> { },
+                        e -> log.warn("Error summarizing conversation {}: {}", sessionId, e.getMessage()));
+    }
+
+    private static List<Map<String, String>> summaryRequest(String currentSummary, List<ChatMessage> messages) {
+        StringBuilder transcript = new StringBuilder("Existing summary:\n")
+                .append(currentSummary == null || currentSummary.isBlank() ? "(none)" : currentSummary)
+                .append("\n\nNew messages:\n");
+        for (ChatMessage message : messages) {
+            transcript.append(message.getSenderType() == ChatMessage.SenderType.AI ? "Assistant: " : "Customer: ")
+                    .append(message.getMessageContent())
+                    .append('\n');
+        }
+        List<Map<String, String>> request = new ArrayList<>();
+        request.add(Map.of("role", "system", "content", SUMMARY_PROMPT));
+        request.add(Map.of("role", "user", "content", transcript.toString()));
+        return request;
+    }
+}
@@ -0,0 +1,124 @@
+package com.think41.backend.services;
+
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk ingestion path for the seed CSVs. Rows bypass JPA entirely: they are written with plain
+ * JDBC batches (no select-before-insert for assigned ids, no persistence context) and committed
+ * every {@code csv.loader.chunk-size} rows, so memory stays flat regardless of file size.
+ */
+@Component
+public class CsvBulkLoader {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ResourceLoader resourceLoader;
+    private final String dataLocation;
+    private final int batchSize;
+    private final int chunkSize;
+
+    public CsvBulkLoader(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         ResourceLoader resourceLoader,
+                         @Value("${csv.loader.data-location:classpath:data/}") String dataLocation,
+                         @Value("${csv.loader.batch-size:1000}") int batchSize,
+                         @Value("${csv.loader.chunk-size:20000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.resourceLoader = resourceLoader;
+        this.dataLocation = dataLocation.endsWith("/") ? dataLocation : dataLocation + "/";
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Streams one CSV into its table.
+     *
+     * @return number of rows written, or -1 if the file could not be loaded
+     */
+    long load(CsvTable table) {
+        long startNanos = System.nanoTime();
+        long rows = 0;
+        try (BufferedReader reader = openReader(table);
+             CSVParser parser = table.parse(reader)) {
+
+            List<Object[]> chunk = new ArrayList<>(chunkSize);
+            for (CSVRecord record : parser) {
+                chunk.add(table.map(record));
+                if (chunk.size() >= chunkSize) {
+                    rows += writeChunk(table, chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                rows += writeChunk(table, chunk);
+            }
+        } catch (Exception e) {
+            System.err.println("Error bulk loading " + table.tableName() + " after " + rows + " rows: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+        report(table, rows, System.nanoTime() - startNanos);
+        return rows;
+    }
+
+    int chunkSize() {
+        return chunkSize;
+    }
+
+    String dataLocation() {
+        return dataLocation;
+    }
+
+    // Resolves a CSV under csv.loader.data-location (classpath: by default, file: for external exports)
+    Resource resource(String fileName) {
+        return resourceLoader.getResource(dataLocation + fileName);
+    }
+
+    BufferedReader openReader(CsvTable table) throws IOException {
+        return openReader(resource(table.fileName()));
+    }
+
+    BufferedReader openReader(Resource resource) throws IOException {
+        return new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    // Each chunk is its own transaction; the JDBC driver splits it into batches of batchSize statements
+    int writeChunk(CsvTable table, List<Object[]> rows) {
+        return writeChunk(table.insertSql(), table, rows, null);
+    }
+
+    // Runs afterWrite (e.g. a checkpoint update) in the same transaction as the rows
+    int writeChunk(String sql, CsvTable table, List<Object[]> rows, Runnable afterWrite) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, rows, batchSize, table::bind);
+            }
+            if (afterWrite != null) {
+                afterWrite.run();
+            }
+        });
+        return rows.size();
+    }
+
+    static void report(CsvTable table, long rows, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        System.out.printf("Loaded %d %s in %.1f s (%.0f rows/sec).%n",
+                rows, table.tableName(), seconds, rows / seconds);
+    }
+}
@@ -2,24 +2,24 @@ package com.think41.backend.services;
 
 import com.think41.backend.Repo.*;
 import com.think41.backend.entity.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.time.LocalDate;
-import java.time.OffsetDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
 
 @Component
+@ConditionalOnProperty(name = "csv.loader.enabled", havingValue = "true", matchIfMissing = true) // off for tests that seed their own data
 public class CsvDataLoader implements CommandLineRunner {
 
     private final DistributionCenterRepository distributionCenterRepository;
@@ -28,86 +28,109 @@ public class CsvDataLoader implements CommandLineRunner {
     private final OrderRepository orderRepository;
     private final InventoryItemRepository inventoryItemRepository;
     private final OrderItemRepository orderItemRepository;
-
-    // Use a map to store entities already loaded for relationships
-    private final Map<Long, DistributionCenter> distributionCenters = new HashMap<>();
-    private final Map<Long, Product> products = new HashMap<>();
-    private final Map<Long, User> users = new HashMap<>();
-    private final Map<Long, Order> orders = new HashMap<>();
-    private final Map<Long, InventoryItem> inventoryItems = new HashMap<>();
-
+    private final CsvBulkLoader bulkLoader;
+    private final CsvIngestionPipeline ingestionPipeline;
+    private final CsvIncrementalLoader incrementalLoader;
+    private final TransactionTemplate transactionTemplate;
+    private final String mode; // "pipeline" (parallel bulk), "batch" (sequential bulk), "incremental" (resumable upserts) or "jpa" (one save() per row)
+
+    private final int chunkSize; // jpa mode: rows between flush()/clear() of the persistence context
+
+    // Ids of rows already loaded, used to validate foreign keys. Relationships are wired with
+    // getReference() proxies, so no loaded entity has to stay on the heap.
+    private final LongIdSet distributionCenterIds = new LongIdSet(16);
+    private final LongIdSet productIds = new LongIdSet();
+    private final LongIdSet userIds = new LongIdSet();
+    private final LongIdSet orderIds = new LongIdSet();
+    private final LongIdSet inventoryItemIds = new LongIdSet();
+    private long orderItemCount;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     public CsvDataLoader(DistributionCenterRepository distributionCenterRepository,
                          ProductRepository productRepository,
                          UserRepository userRepository,
                          OrderRepository orderRepository,
                          InventoryItemRepository inventoryItemRepository,
-                         OrderItemRepository orderItemRepository) {
+                         OrderItemRepository orderItemRepository,
+                         CsvBulkLoader bulkLoader,
+                         CsvIngestionPipeline ingestionPipeline,
+                         CsvIncrementalLoader incrementalLoader,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${csv.loader.mode:batch}") String mode,
+                         @Value("${csv.loader.chunk-size:20000}") int chunkSize) {
         this.distributionCenterRepository = distributionCenterRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
         this.orderRepository = orderRepository;
         this.inventoryItemRepository = inventoryItemRepository;
         this.orderItemRepository = orderItemRepository;
+        this.bulkLoader = bulkLoader;
+        this.ingestionPipeline = ingestionPipeline;
+        this.incrementalLoader = incrementalLoader;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mode = mode;
+        this.chunkSize = chunkSize;
     }
 
     @Override
-    @Transactional
     public void run(String... args) throws Exception {
+        if ("incremental".equalsIgnoreCase(mode)) {
+            // Runs on every start: resumes interrupted files and applies only what changed since the last checkpoint
+            System.out.println("Applying CSV data incrementally...");
+            long startNanos = System.nanoTime();
+            incrementalLoader.run();
+            System.out.printf("Incremental data loading complete in %.1f s.%n", (System.nanoTime() - startNanos) / 1_000_000_000.0);
+            return;
+        }
         if (productRepository.count() == 0 && userRepository.count() == 0) {
-            System.out.println("Loading initial data from CSVs...");
-            loadDistributionCenters();
-            loadProducts();
-            loadUsers();
-            loadOrders();
-            loadInventoryItems();
-            loadOrderItems();
-            System.out.println("Initial data loading complete.");
+            System.out.println("Loading initial data from CSVs (" + mode + " mode)...");
+            long startNanos = System.nanoTime();
+            if ("jpa".equalsIgnoreCase(mode)) {
+                // Original path: every entity goes through save() inside a single transaction
+                transactionTemplate.executeWithoutResult(status -> {
+                    loadDistributionCenters();
+                    loadProducts();
+                    loadUsers();
+                    loadOrders();
+                    loadInventoryItems();
+                    loadOrderItems();
+                });
+            } else if ("pipeline".equalsIgnoreCase(mode)) {
+                ingestionPipeline.run();
+            } else {
+                for (CsvTable table : CsvTable.values()) {
+                    bulkLoader.load(table);
+                }
+            }
+            System.out.printf("Initial data loading complete in %.1f s.%n", (System.nanoTime() - startNanos) / 1_000_000_000.0);
         } else {
             System.out.println("Database already contains data. Skipping CSV data loading.");
         }
     }
 
-    // --- UPDATED parseTimestamp method ---
-    // Define a list of common timestamp patterns to try
-    // Order matters: try more specific patterns first.
-    private static final DateTimeFormatter[] DATE_TIME_FORMATTERS = {
-            // Example: 2024-01-01 13:11:59.341450+00:00 (Your most recent problematic format)
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSSXXX"),
-            // Example: 2024-01-01 13:11:59+00:00 (The previous problematic format)
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssXXX"),
-            // Example: 2024-01-01 13:11:59.341 (No offset, milliseconds)
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS"),
-            // Example: 2024-01-01 13:11:59 (No offset, no fractional seconds)
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
-            // Fallback for ISO_OFFSET_DATE_TIME which might handle some variations
-            DateTimeFormatter.ISO_OFFSET_DATE_TIME
-    };
-
-    private LocalDate parseTimestamp(String timestamp) {
-        if (timestamp == null || timestamp.trim().isEmpty() || timestamp.equalsIgnoreCase("NULL")) {
-            return null; // Handle null, empty, or "NULL" strings
-        }
-
-        String trimmedTimestamp = timestamp.trim();
+    // Fast, exception-free parser with the original DateTimeFormatter chain as fallback
+    static LocalDate parseTimestamp(String timestamp) {
+        return CsvTimestampParser.parse(timestamp);
+    }
 
-        // Attempt to parse with each formatter in sequence
-        for (DateTimeFormatter formatter : DATE_TIME_FORMATTERS) {
-            try {
-                // Try parsing as OffsetDateTime first, as your data includes offsets
-                OffsetDateTime offsetDateTime = OffsetDateTime.parse(trimmedTimestamp, formatter);
-                return offsetDateTime.toLocalDate(); // Extract and return LocalDate
-            } catch (DateTimeParseException e) {
-                // Try next formatter if current one fails
-            }
+    // Returns an uninitialized proxy for a row loaded earlier, failing like the old map lookups did for unknown ids
+    private <T> T reference(LongIdSet loadedIds, long id, Class<T> type, String owner) {
+        if (!loadedIds.contains(id)) {
+            throw new RuntimeException(type.getSimpleName() + " with ID " + id + " not found for " + owner);
         }
-
-        // If none of the formatters work, log a warning and return null
-        System.err.println("Warning: Could not parse timestamp '" + timestamp + "'. Tried all known formats.");
-        return null;
+        return entityManager.getReference(type, id);
     }
 
-    // --- End of UPDATED parseTimestamp method ---
+    // Writes pending inserts and detaches everything, so the persistence context never holds more than one chunk.
+    // Callers pass the rows saved so far, not the distinct ids seen: a repeated id is still a save to flush.
+    private void flushAndClearEvery(long rowsSoFar) {
+        if (rowsSoFar % chunkSize == 0) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
 
 
     private void loadDistributionCenters() {
@@ -125,9 +148,9 @@ public class CsvDataLoader implements CommandLineRunner {
                 dc.setLatitude(Double.parseDouble(record.get("latitude")));
                 dc.setLongitude(Double.parseDouble(record.get("longitude")));
                 distributionCenterRepository.save(dc);
-                distributionCenters.put(dc.getId(), dc); // Store for later lookup
+                distributionCenterIds.add(dc.getId()); // Store for later lookup
             }
-            System.out.println("Loaded " + distributionCenters.size() + " distribution centers.");
+            System.out.println("Loaded " + distributionCenterIds.size() + " distribution centers.");
         } catch (Exception e) {
             System.err.println("Error loading distribution centers: " + e.getMessage());
             e.printStackTrace();
@@ -142,6 +165,7 @@ public class CsvDataLoader implements CommandLineRunner {
                     .build()
                     .parse(reader);
 
+            long saved = 0;
             for (CSVRecord record : records) {
                 Product product = new Product();
                 product.setId(Long.parseLong(record.get("id")));
@@ -154,13 +178,13 @@ public class CsvDataLoader implements CommandLineRunner {
                 product.setSku(record.get("sku"));
 
                 Long dcId = Long.parseLong(record.get("distribution_center_id"));
-                product.setDistributionCenter(Optional.ofNullable(distributionCenters.get(dcId))
-                        .orElseThrow(() -> new RuntimeException("DistributionCenter with ID " + dcId + " not found for product " + product.getId())));
+                product.setDistributionCenter(reference(distributionCenterIds, dcId, DistributionCenter.class, "product " + product.getId()));
 
                 productRepository.save(product);
-                products.put(product.getId(), product); // Store for later lookup
+                productIds.add(product.getId()); // Store for later lookup
+                flushAndClearEvery(++saved);
             }
-            System.out.println("Loaded " + products.size() + " products.");
+            System.out.println("Loaded " + productIds.size() + " products.");
         } catch (Exception e) {
             System.err.println("Error loading products: " + e.getMessage());
             e.printStackTrace();
@@ -175,6 +199,7 @@ public class CsvDataLoader implements CommandLineRunner {
                     .build()
                     .parse(reader);
 
+            long saved = 0;
             for (CSVRecord record : records) {
                 User user = new User();
                 user.setId(Long.parseLong(record.get("id")));
@@ -194,9 +219,10 @@ public class CsvDataLoader implements CommandLineRunner {
                 user.setCreatedAt(parseTimestamp(record.get("created_at"))); // Uses updated parseTimestamp
 
                 userRepository.save(user);
-                users.put(user.getId(), user); // Store for later lookup
+                userIds.add(user.getId()); // Store for later lookup
+                flushAndClearEvery(++saved);
             }
-            System.out.println("Loaded " + users.size() + " users.");
+            System.out.println("Loaded " + userIds.size() + " users.");
         } catch (Exception e) {
             System.err.println("Error loading users: " + e.getMessage());
             e.printStackTrace();
@@ -211,13 +237,13 @@ public class CsvDataLoader implements CommandLineRunner {
                     .build()
                     .parse(reader);
 
+            long saved = 0;
             for (CSVRecord record : records) {
                 Order order = new Order();
                 order.setId(Long.parseLong(record.get("order_id")));
 
                 Long userId = Long.parseLong(record.get("user_id"));
-                order.setUser(Optional.ofNullable(users.get(userId))
-                        .orElseThrow(() -> new RuntimeException("User with ID " + userId + " not found for order " + order.getId())));
+                order.setUser(reference(userIds, userId, User.class, "order " + order.getId()));
 
                 order.setStatus(record.get("status"));
                 order.setGender(record.get("gender"));
@@ -228,9 +254,10 @@ public class CsvDataLoader implements CommandLineRunner {
                 order.setNumOfItem(Integer.parseInt(record.get("num_of_item")));
 
                 orderRepository.save(order);
-                orders.put(order.getId(), order); // Store for later lookup
+                orderIds.add(order.getId()); // Store for later lookup
+                flushAndClearEvery(++saved);
             }
-            System.out.println("Loaded " + orders.size() + " orders.");
+            System.out.println("Loaded " + orderIds.size() + " orders.");
         } catch (Exception e) {
             System.err.println("Error loading orders: " + e.getMessage());
             e.printStackTrace();
@@ -245,13 +272,13 @@ public class CsvDataLoader implements CommandLineRunner {
                     .build()
                     .parse(reader);
 
+            long saved = 0;
             for (CSVRecord record : records) {
                 InventoryItem item = new InventoryItem();
                 item.setId(Long.parseLong(record.get("id")));
 
                 Long productId = Long.parseLong(record.get("product_id"));
-                item.setProduct(Optional.ofNullable(products.get(productId))
-                        .orElseThrow(() -> new RuntimeException("Product with ID " + productId + " not found for inventory item " + item.getId())));
+                item.setProduct(reference(productIds, productId, Product.class, "inventory item " + item.getId()));
 
                 item.setCreatedAt(parseTimestamp(record.get("created_at"))); // Uses updated parseTimestamp
                 item.setSoldAt(parseTimestamp(record.get("sold_at"))); // Uses updated parseTimestamp
@@ -266,16 +293,16 @@ public class CsvDataLoader implements CommandLineRunner {
                 String dcIdString = record.get("product_distribution_center_id");
                 if (dcIdString != null && !dcIdString.trim().isEmpty()) {
                     Long dcId = Long.parseLong(dcIdString);
-                    item.setProductDistributionCenter(Optional.ofNullable(distributionCenters.get(dcId))
-                            .orElseThrow(() -> new RuntimeException("DistributionCenter with ID " + dcId + " not found for inventory item " + item.getId())));
+                    item.setProductDistributionCenter(reference(distributionCenterIds, dcId, DistributionCenter.class, "inventory item " + item.getId()));
                 } else {
                     item.setProductDistributionCenter(null);
                 }
 
                 inventoryItemRepository.save(item);
-                inventoryItems.put(item.getId(), item);
+                inventoryItemIds.add(item.getId());
+                flushAndClearEvery(++saved);
             }
-            System.out.println("Loaded " + inventoryItems.size() + " inventory items.");
+            System.out.println("Loaded " + inventoryItemIds.size() + " inventory items.");
         } catch (Exception e) {
             System.err.println("Error loading inventory items: " + e.getMessage());
             e.printStackTrace();
@@ -295,18 +322,15 @@ public class CsvDataLoader implements CommandLineRunner {
                 orderItem.setId(Long.parseLong(record.get("id")));
 
                 Long orderId = Long.parseLong(record.get("order_id"));
-                orderItem.setOrder(Optional.ofNullable(orders.get(orderId))
-                        .orElseThrow(() -> new RuntimeException("Order with ID " + orderId + " not found for order item " + orderItem.getId())));
+                orderItem.setOrder(reference(orderIds, orderId, Order.class, "order item " + orderItem.getId()));
 
                 orderItem.setUserId(Long.parseLong(record.get("user_id")));
 
                 Long productId = Long.parseLong(record.get("product_id"));
-                orderItem.setProduct(Optional.ofNullable(products.get(productId))
-                        .orElseThrow(() -> new RuntimeException("Product with ID " + productId + " not found for order item " + orderItem.getId())));
+                orderItem.setProduct(reference(productIds, productId, Product.class, "order item " + orderItem.getId()));
 
                 Long inventoryItemId = Long.parseLong(record.get("inventory_item_id"));
-                orderItem.setInventoryItem(Optional.ofNullable(inventoryItems.get(inventoryItemId))
-                        .orElseThrow(() -> new RuntimeException("InventoryItem with ID " + inventoryItemId + " not found for order item " + orderItem.getId())));
+                orderItem.setInventoryItem(reference(inventoryItemIds, inventoryItemId, InventoryItem.class, "order item " + orderItem.getId()));
 
                 orderItem.setStatus(record.get("status"));
                 orderItem.setCreatedAt(parseTimestamp(record.get("created_at"))); // Uses updated parseTimestamp
@@ -315,8 +339,9 @@ public class CsvDataLoader implements CommandLineRunner {
                 orderItem.setReturnedAt(parseTimestamp(record.get("returned_at"))); // Uses updated parseTimestamp
 
                 orderItemRepository.save(orderItem);
+                flushAndClearEvery(++orderItemCount);
             }
-            System.out.println("Loaded " + orderItemRepository.count() + " order items.");
+            System.out.println("Loaded " + orderItemCount + " order items.");
         } catch (Exception e) {
             System.err.println("Error loading order items: " + e.getMessage());
             e.printStackTrace();
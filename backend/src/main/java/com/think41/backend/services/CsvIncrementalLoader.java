@@ -0,0 +1,275 @@
+package com.think41.backend.services;
+
+import com.think41.backend.Repo.CsvIngestCheckpointRepository;
+import com.think41.backend.entity.CsvIngestCheckpoint;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Resumable, incremental CSV ingestion.
+ * <p>
+ * Every source file has a {@link CsvIngestCheckpoint} holding the character offset and record count
+ * committed so far; it is updated in the same transaction as each chunk of rows. Rows are written
+ * with an upsert that skips unchanged values, so replaying part of a file is harmless.
+ * <ul>
+ *     <li>unchanged, completed file: skipped without reading it</li>
+ *     <li>interrupted load: resumes at the checkpointed offset</li>
+ *     <li>completed file that grew and still starts with the loaded content (appended export): only
+ *     the new tail is read</li>
+ *     <li>rewritten file, even a longer one: re-read from the start, writing only rows that differ</li>
+ * </ul>
+ * Nightly delta files named {@code <table>.delta*.csv} next to the base export are applied after it,
+ * in file-name order, each with its own checkpoint.
+ */
+@Component
+public class CsvIncrementalLoader {
+
+    private final CsvBulkLoader bulkLoader;
+    private final CsvIngestCheckpointRepository checkpointRepository;
+    private final ResourcePatternResolver resourcePatternResolver;
+    private final ToolResultCache toolResultCache;
+
+    public CsvIncrementalLoader(CsvBulkLoader bulkLoader,
+                                CsvIngestCheckpointRepository checkpointRepository,
+                                ResourceLoader resourceLoader,
+                                ToolResultCache toolResultCache) {
+        this.bulkLoader = bulkLoader;
+        this.checkpointRepository = checkpointRepository;
+        this.resourcePatternResolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
+        this.toolResultCache = toolResultCache;
+    }
+
+    public void run() {
+        try {
+            for (CsvTable table : CsvTable.values()) {
+                for (Resource source : sources(table)) {
+                    if (load(table, source) < 0) {
+                        // Children of a half-loaded table would fail their foreign keys; the next run resumes here
+                        System.err.println("Stopping incremental CSV ingestion at " + source.getFilename() + ".");
+                        return;
+                    }
+                }
+            }
+        } finally {
+            // Upserts go through JDBC, so the JPA listeners that keep tool results fresh never see them
+            toolResultCache.invalidateAll();
+        }
+    }
+
+    private List<Resource> sources(CsvTable table) {
+        List<Resource> sources = new ArrayList<>();
+        Resource base = bulkLoader.resource(table.fileName());
+        if (base.exists()) {
+            sources.add(base);
+        }
+        String baseName = table.fileName().substring(0, table.fileName().length() - ".csv".length());
+        try {
+            Resource[] deltas = resourcePatternResolver.getResources(bulkLoader.dataLocation() + baseName + ".delta*.csv");
+            Arrays.sort(deltas, Comparator.comparing(Resource::getFilename, Comparator.nullsFirst(Comparator.naturalOrder())));
+            sources.addAll(Arrays.asList(deltas));
+        } catch (IOException e) {
+            System.err.println("Could not list delta files for " + table.tableName() + ": " + e.getMessage());
+        }
+        return sources;
+    }
+
+    /**
+     * Applies one file from its checkpoint onwards.
+     *
+     * @return number of rows upserted, or -1 if the file failed
+     */
+    private long load(CsvTable table, Resource source) {
+        String fileName = source.getFilename();
+        long startNanos = System.nanoTime();
+        try {
+            long length = source.contentLength();
+            long lastModified = source.lastModified();
+            CsvIngestCheckpoint checkpoint = checkpointRepository.findById(fileName)
+                    .orElseGet(() -> new CsvIngestCheckpoint(fileName, table.tableName(), length, lastModified, 0L, null, 0L, false, null));
+
+            boolean unchanged = Objects.equals(checkpoint.getFileLength(), length)
+                    && Objects.equals(checkpoint.getFileLastModified(), lastModified);
+            if (unchanged && checkpoint.getCompleted()) {
+                System.out.println("Skipping " + fileName + ": unchanged since the last load.");
+                return 0;
+            }
+            // Only the tail is new if everything loaded before is still there, character for character
+            boolean appended = checkpoint.getCompleted()
+                    && checkpoint.getFileLength() != null && length > checkpoint.getFileLength()
+                    && checkpoint.getPrefixChecksum() != null
+                    && checkpoint.getPrefixChecksum().equals(prefixChecksum(source, checkpoint.getCharOffset()));
+            if (!unchanged && !appended) {
+                if (checkpoint.getCharOffset() > 0) {
+                    System.out.println("Re-reading " + fileName + " from the start: it was rewritten since the last load.");
+                }
+                checkpoint.setCharOffset(0L);
+                checkpoint.setRecordCount(0L);
+            }
+            checkpoint.setFileLength(length);
+            checkpoint.setFileLastModified(lastModified);
+
+            long rows = ingest(table, source, checkpoint);
+            CsvBulkLoader.report(table, rows, System.nanoTime() - startNanos);
+            return rows;
+        } catch (Exception e) {
+            System.err.println("Error loading " + fileName + " incrementally: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    private long ingest(CsvTable table, Resource source, CsvIngestCheckpoint checkpoint) throws IOException {
+        long baseOffset = checkpoint.getCharOffset();
+        if (baseOffset > 0) {
+            System.out.println("Resuming " + source.getFilename() + " after " + checkpoint.getRecordCount() + " records.");
+        }
+        List<String> headerNames = baseOffset > 0 ? readHeader(table, source) : null;
+        int chunkSize = bulkLoader.chunkSize();
+
+        try (CountingReader reader = new CountingReader(bulkLoader.openReader(source))) {
+            reader.skipFully(baseOffset);
+            try (CSVParser parser = headerNames != null ? table.parse(reader, headerNames) : table.parse(reader)) {
+                long records = checkpoint.getRecordCount();
+                long rows = 0;
+                List<Object[]> chunk = new ArrayList<>(chunkSize);
+                for (CSVRecord record : parser) {
+                    if (chunk.size() >= chunkSize) {
+                        // Everything before this record is in the chunk, so its start is the resume point
+                        rows += commit(table, chunk, checkpoint, baseOffset + record.getCharacterPosition(), records, false);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                    chunk.add(table.map(record));
+                    records++;
+                }
+                // The reader has seen the whole file now, so its checksum covers exactly charOffset characters
+                checkpoint.setPrefixChecksum(reader.checksum());
+                rows += commit(table, chunk, checkpoint, reader.count(), records, true);
+                return rows;
+            }
+        }
+    }
+
+    private int commit(CsvTable table, List<Object[]> rows, CsvIngestCheckpoint checkpoint,
+                       long charOffset, long recordCount, boolean completed) {
+        return bulkLoader.writeChunk(table.upsertSql(), table, rows, () -> {
+            checkpoint.setCharOffset(charOffset);
+            checkpoint.setRecordCount(recordCount);
+            checkpoint.setCompleted(completed);
+            if (!completed) {
+                checkpoint.setPrefixChecksum(null);
+            }
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+        });
+    }
+
+    private String prefixChecksum(Resource source, long charOffset) throws IOException {
+        try (CountingReader reader = new CountingReader(bulkLoader.openReader(source))) {
+            reader.skipFully(charOffset);
+            return reader.checksum();
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private List<String> readHeader(CsvTable table, Resource source) throws IOException {
+        try (Reader reader = bulkLoader.openReader(source);
+             CSVParser parser = table.parse(reader)) {
+            return parser.getHeaderNames();
+        }
+    }
+
+    // Counts and hashes characters pulled from the file, skipped ones included, which gives the offset
+    // of end-of-file and a checksum of everything before it once parsing is done
+    private static final class CountingReader extends FilterReader {
+        private final MessageDigest digest;
+        private final char[] skipBuffer = new char[8192];
+        private long count;
+
+        CountingReader(Reader in) {
+            super(in);
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                count++;
+                hash(new char[]{(char) c}, 0, 1);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+                hash(buffer, offset, n);
+            }
+            return n;
+        }
+
+        // Reads rather than skips, so skipped characters are hashed too
+        @Override
+        public long skip(long n) throws IOException {
+            int read = read(skipBuffer, 0, (int) Math.min(n, skipBuffer.length));
+            return Math.max(read, 0);
+        }
+
+        void skipFully(long n) throws IOException {
+            while (n > 0) {
+                long skipped = skip(n);
+                if (skipped <= 0) {
+                    throw new EOFException("File is shorter than its checkpoint offset");
+                }
+                n -= skipped;
+            }
+        }
+
+        // UTF-16 code units, so the checksum doesn't depend on how the reads split the file
+        private void hash(char[] buffer, int offset, int length) {
+            ByteBuffer bytes = ByteBuffer.allocate(length * 2);
+            bytes.asCharBuffer().put(buffer, offset, length);
+            digest.update(bytes);
+        }
+
+        long count() {
+            return count;
+        }
+
+        String checksum() {
+            try {
+                // Hash a copy, so the reader can keep going
+                return HexFormat.of().formatHex(((MessageDigest) digest.clone()).digest());
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("SHA-256 digest cannot be copied", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.think41.backend.services;
+
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pipelined, multi-threaded variant of the bulk loader.
+ * <p>
+ * Per table: one reader thread tokenizes the CSV into record chunks, parser threads map the chunks to
+ * column values (number/timestamp parsing), and writer threads commit them through
+ * {@link CsvBulkLoader#writeChunk}. Stages are connected by bounded queues so a slow database applies
+ * back-pressure to the reader instead of buffering the whole file.
+ * <p>
+ * Tables inside a stage have no foreign keys to each other and load concurrently; a stage starts only
+ * after every table of the previous stage has committed, which preserves the parent-before-child
+ * order the sequential loader gets implicitly.
+ */
+@Component
+public class CsvIngestionPipeline {
+
+    private static final List<List<CsvTable>> STAGES = List.of(
+            List.of(CsvTable.DISTRIBUTION_CENTERS),
+            List.of(CsvTable.PRODUCTS, CsvTable.USERS),
+            List.of(CsvTable.ORDERS, CsvTable.INVENTORY_ITEMS),
+            List.of(CsvTable.ORDER_ITEMS)
+    );
+
+    // End-of-stream marker, compared by identity
+    private static final List<?> END = new ArrayList<>(0);
+
+    private final CsvBulkLoader bulkLoader;
+    private final int parserThreads;
+    private final int writerThreads;
+    private final int queueCapacity;
+
+    public CsvIngestionPipeline(CsvBulkLoader bulkLoader,
+                                @Value("${csv.loader.pipeline.parser-threads:0}") int parserThreads,
+                                @Value("${csv.loader.pipeline.writer-threads:4}") int writerThreads,
+                                @Value("${csv.loader.pipeline.queue-capacity:8}") int queueCapacity) {
+        this.bulkLoader = bulkLoader;
+        // 0 means one parser per core
+        this.parserThreads = parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors();
+        this.writerThreads = Math.max(1, writerThreads);
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    public void run() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "csv-ingest-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (List<CsvTable> stage : STAGES) {
+                List<CompletableFuture<Long>> loads = stage.stream()
+                        .map(table -> CompletableFuture.supplyAsync(() -> load(table, executor), executor))
+                        .toList();
+                boolean stageFailed = false;
+                for (CompletableFuture<Long> load : loads) {
+                    if (load.join() < 0) {
+                        stageFailed = true;
+                    }
+                }
+                if (stageFailed) {
+                    // Dependent tables would only fail their foreign keys, so stop here
+                    System.err.println("Stopping CSV ingestion pipeline: stage " + stage + " did not complete.");
+                    return;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads one table through reader -> parsers -> writers.
+     *
+     * @return number of rows written, or -1 if the table failed
+     */
+    private long load(CsvTable table, ExecutorService executor) {
+        long startNanos = System.nanoTime();
+        BlockingQueue<List<CSVRecord>> records = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<Object[]>> rows = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger activeParsers = new AtomicInteger(parserThreads);
+        AtomicLong written = new AtomicLong();
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        tasks.add(CompletableFuture.runAsync(guarded(failure, () -> read(table, records, failure)), executor));
+        for (int i = 0; i < parserThreads; i++) {
+            tasks.add(CompletableFuture.runAsync(guarded(failure, () -> {
+                try {
+                    parse(table, records, rows, failure);
+                } finally {
+                    // The last parser to finish tells every writer that no more rows are coming
+                    if (activeParsers.decrementAndGet() == 0) {
+                        for (int w = 0; w < writerThreads; w++) {
+                            put(rows, end(), failure);
+                        }
+                    }
+                }
+            }), executor));
+        }
+        for (int i = 0; i < writerThreads; i++) {
+            tasks.add(CompletableFuture.runAsync(guarded(failure, () -> write(table, rows, written, failure)), executor));
+        }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+
+        if (failure.get() != null) {
+            System.err.println("Error loading " + table.tableName() + " after " + written.get() + " rows: " + failure.get().getMessage());
+            failure.get().printStackTrace();
+            return -1;
+        }
+        CsvBulkLoader.report(table, written.get(), System.nanoTime() - startNanos);
+        return written.get();
+    }
+
+    private void read(CsvTable table, BlockingQueue<List<CSVRecord>> records, AtomicReference<Throwable> failure) throws Exception {
+        int chunkSize = bulkLoader.chunkSize();
+        try (BufferedReader reader = bulkLoader.openReader(table);
+             CSVParser parser = table.parse(reader)) {
+            List<CSVRecord> chunk = new ArrayList<>(chunkSize);
+            for (CSVRecord record : parser) {
+                chunk.add(record);
+                if (chunk.size() >= chunkSize) {
+                    if (!put(records, chunk, failure)) {
+                        return;
+                    }
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                put(records, chunk, failure);
+            }
+        } finally {
+            for (int i = 0; i < parserThreads; i++) {
+                put(records, end(), failure);
+            }
+        }
+    }
+
+    private void parse(CsvTable table, BlockingQueue<List<CSVRecord>> records, BlockingQueue<List<Object[]>> rows,
+                       AtomicReference<Throwable> failure) throws InterruptedException {
+        List<CSVRecord> chunk;
+        while ((chunk = take(records, failure)) != null && chunk != END) {
+            List<Object[]> mapped = new ArrayList<>(chunk.size());
+            for (CSVRecord record : chunk) {
+                mapped.add(table.map(record));
+            }
+            if (!put(rows, mapped, failure)) {
+                return;
+            }
+        }
+    }
+
+    private void write(CsvTable table, BlockingQueue<List<Object[]>> rows, AtomicLong written,
+                       AtomicReference<Throwable> failure) throws InterruptedException {
+        List<Object[]> chunk;
+        while ((chunk = take(rows, failure)) != null && chunk != END) {
+            written.addAndGet(bulkLoader.writeChunk(table, chunk));
+        }
+    }
+
+    // Queue helpers poll with a timeout so every thread notices a failure elsewhere instead of blocking forever
+
+    private static <T> boolean put(BlockingQueue<T> queue, T item, AtomicReference<Throwable> failure) throws InterruptedException {
+        while (failure.get() == null) {
+            if (queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> T take(BlockingQueue<T> queue, AtomicReference<Throwable> failure) throws InterruptedException {
+        while (failure.get() == null) {
+            T item = queue.poll(100, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> end() {
+        return (List<T>) END;
+    }
+
+    private static Runnable guarded(AtomicReference<Throwable> failure, Task task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,218 @@
+package com.think41.backend.services;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Column layout of every seed CSV and the table it is written to by the bulk loader.
+ * Constants are declared in foreign-key order, so iterating {@link #values()} loads parents first.
+ */
+enum CsvTable {
+
+    DISTRIBUTION_CENTERS("distribution_centers.csv", "distribution_centers",
+            new String[]{"id", "name", "latitude", "longitude"},
+            new int[]{Types.BIGINT, Types.VARCHAR, Types.DOUBLE, Types.DOUBLE},
+            record -> new Object[]{
+                    Long.parseLong(record.get("id")),
+                    record.get("name"),
+                    Double.parseDouble(record.get("latitude")),
+                    Double.parseDouble(record.get("longitude"))
+            }),
+
+    PRODUCTS("products.csv", "products",
+            new String[]{"id", "cost", "category", "name", "brand", "retail_price", "department", "sku", "distribution_center_id"},
+            new int[]{Types.BIGINT, Types.DOUBLE, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE, Types.VARCHAR, Types.VARCHAR, Types.BIGINT},
+            record -> new Object[]{
+                    Long.parseLong(record.get("id")),
+                    Double.parseDouble(record.get("cost")),
+                    record.get("category"),
+                    record.get("name"),
+                    record.get("brand"),
+                    Double.parseDouble(record.get("retail_price")),
+                    record.get("department"),
+                    record.get("sku"),
+                    Long.parseLong(record.get("distribution_center_id"))
+            }),
+
+    USERS("users.csv", "users",
+            new String[]{"id", "first_name", "last_name", "email", "age", "gender", "state", "street_address",
+                    "postal_code", "city", "country", "latitude", "longitude", "traffic_source", "created_at"},
+            new int[]{Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                    Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE, Types.DOUBLE, Types.VARCHAR, Types.DATE},
+            record -> new Object[]{
+                    Long.parseLong(record.get("id")),
+                    record.get("first_name"),
+                    record.get("last_name"),
+                    record.get("email"),
+                    Integer.parseInt(record.get("age")),
+                    record.get("gender"),
+                    record.get("state"),
+                    record.get("street_address"),
+                    record.get("postal_code"),
+                    record.get("city"),
+                    record.get("country"),
+                    Double.parseDouble(record.get("latitude")),
+                    Double.parseDouble(record.get("longitude")),
+                    record.get("traffic_source"),
+                    CsvDataLoader.parseTimestamp(record.get("created_at"))
+            }),
+
+    ORDERS("orders.csv", "orders",
+            new String[]{"order_id", "user_id", "status", "gender", "created_at", "returned_at", "shipped_at", "delivered_at", "num_of_item"},
+            new int[]{Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.DATE, Types.DATE, Types.DATE, Types.DATE, Types.INTEGER},
+            record -> new Object[]{
+                    Long.parseLong(record.get("order_id")),
+                    Long.parseLong(record.get("user_id")),
+                    record.get("status"),
+                    record.get("gender"),
+                    CsvDataLoader.parseTimestamp(record.get("created_at")),
+                    CsvDataLoader.parseTimestamp(record.get("returned_at")),
+                    CsvDataLoader.parseTimestamp(record.get("shipped_at")),
+                    CsvDataLoader.parseTimestamp(record.get("delivered_at")),
+                    Integer.parseInt(record.get("num_of_item"))
+            }),
+
+    INVENTORY_ITEMS("inventory_items.csv", "inventory_items",
+            new String[]{"id", "product_id", "created_at", "sold_at", "cost", "product_category", "product_name", "product_brand",
+                    "product_retail_price", "product_department", "product_sku", "product_distribution_center_id"},
+            new int[]{Types.BIGINT, Types.BIGINT, Types.DATE, Types.DATE, Types.DOUBLE, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                    Types.DOUBLE, Types.VARCHAR, Types.VARCHAR, Types.BIGINT},
+            record -> new Object[]{
+                    Long.parseLong(record.get("id")),
+                    Long.parseLong(record.get("product_id")),
+                    CsvDataLoader.parseTimestamp(record.get("created_at")),
+                    CsvDataLoader.parseTimestamp(record.get("sold_at")),
+                    Double.parseDouble(record.get("cost")),
+                    record.get("product_category"),
+                    record.get("product_name"),
+                    record.get("product_brand"),
+                    Double.parseDouble(record.get("product_retail_price")),
+                    record.get("product_department"),
+                    record.get("product_sku"),
+                    optionalLong(record.get("product_distribution_center_id"))
+            }),
+
+    ORDER_ITEMS("order_items.csv", "order_items",
+            new String[]{"id", "order_id", "user_id", "product_id", "inventory_item_id", "status",
+                    "created_at", "shipped_at", "delivered_at", "returned_at"},
+            new int[]{Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.VARCHAR,
+                    Types.DATE, Types.DATE, Types.DATE, Types.DATE},
+            record -> new Object[]{
+                    Long.parseLong(record.get("id")),
+                    Long.parseLong(record.get("order_id")),
+                    Long.parseLong(record.get("user_id")),
+                    Long.parseLong(record.get("product_id")),
+                    Long.parseLong(record.get("inventory_item_id")),
+                    record.get("status"),
+                    CsvDataLoader.parseTimestamp(record.get("created_at")),
+                    CsvDataLoader.parseTimestamp(record.get("shipped_at")),
+                    CsvDataLoader.parseTimestamp(record.get("delivered_at")),
+                    CsvDataLoader.parseTimestamp(record.get("returned_at"))
+            });
+
+    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader() // Assumes first row is header
+            .setSkipHeaderRecord(true)
+            .build();
+
+    private final String fileName;
+    private final String tableName;
+    private final int[] sqlTypes;
+    private final Function<CSVRecord, Object[]> mapper;
+    private final String insertSql;
+    private final String upsertSql;
+
+    CsvTable(String fileName, String tableName, String[] columns, int[] sqlTypes, Function<CSVRecord, Object[]> mapper) {
+        this.fileName = fileName;
+        this.tableName = tableName;
+        this.sqlTypes = sqlTypes;
+        this.mapper = mapper;
+        this.insertSql = "INSERT INTO " + tableName + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+        this.upsertSql = buildUpsertSql(insertSql, tableName, columns);
+    }
+
+    // The first column is the primary key. Rows whose values are unchanged are skipped by the
+    // IS DISTINCT FROM guard, so re-applying an export only writes rows that actually differ.
+    private static String buildUpsertSql(String insertSql, String tableName, String[] columns) {
+        String[] nonKey = Arrays.copyOfRange(columns, 1, columns.length);
+        String assignments = Arrays.stream(nonKey).map(c -> c + " = EXCLUDED." + c).collect(Collectors.joining(", "));
+        String current = Arrays.stream(nonKey).map(c -> tableName + "." + c).collect(Collectors.joining(", "));
+        String incoming = Arrays.stream(nonKey).map(c -> "EXCLUDED." + c).collect(Collectors.joining(", "));
+        return insertSql + " ON CONFLICT (" + columns[0] + ") DO UPDATE SET " + assignments
+                + " WHERE (" + current + ") IS DISTINCT FROM (" + incoming + ")";
+    }
+
+    String fileName() {
+        return fileName;
+    }
+
+    String tableName() {
+        return tableName;
+    }
+
+    String insertSql() {
+        return insertSql;
+    }
+
+    String upsertSql() {
+        return upsertSql;
+    }
+
+    CSVParser parse(Reader reader) throws IOException {
+        return CSV_FORMAT.parse(reader);
+    }
+
+    // For readers positioned after the header line, e.g. when resuming from a checkpoint
+    CSVParser parse(Reader reader, List<String> headerNames) throws IOException {
+        return CSV_FORMAT.builder()
+                .setHeader(headerNames.toArray(new String[0]))
+                .setSkipHeaderRecord(false)
+                .build()
+                .parse(reader);
+    }
+
+    // Converts one CSV record into column values, in the order of the INSERT statement
+    Object[] map(CSVRecord record) {
+        return mapper.apply(record);
+    }
+
+    // Binds typed values without the per-parameter metadata lookups JdbcTemplate does for untyped nulls
+    void bind(PreparedStatement ps, Object[] row) throws SQLException {
+        for (int i = 0; i < row.length; i++) {
+            Object value = row[i];
+            int index = i + 1;
+            if (value == null) {
+                ps.setNull(index, sqlTypes[i]);
+            } else if (value instanceof Long l) {
+                ps.setLong(index, l);
+            } else if (value instanceof Integer n) {
+                ps.setInt(index, n);
+            } else if (value instanceof Double d) {
+                ps.setDouble(index, d);
+            } else if (value instanceof LocalDate date) {
+                ps.setDate(index, Date.valueOf(date));
+            } else {
+                ps.setString(index, value.toString());
+            }
+        }
+    }
+
+    private static Long optionalLong(String value) {
+        return value == null || value.trim().isEmpty() ? null : Long.parseLong(value.trim());
+    }
+}
@@ -0,0 +1,150 @@
+package com.think41.backend.services;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Timestamp parsing for the seed CSVs.
+ * <p>
+ * The exports only use {@code yyyy-MM-dd HH:mm:ss[.f...][+hh:mm|Z]}, so {@link #parse(String)} first
+ * walks the characters by hand: no exceptions, no intermediate objects besides the resulting
+ * {@link LocalDate}. Anything outside that shape falls back to the original formatter chain.
+ */
+final class CsvTimestampParser {
+
+    // Slow path: the formatter chain the loader used originally.
+    // Order matters: try more specific patterns first.
+    private static final DateTimeFormatter[] DATE_TIME_FORMATTERS = {
+            // Example: 2024-01-01 13:11:59.341450+00:00
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSSXXX"),
+            // Example: 2024-01-01 13:11:59+00:00
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssXXX"),
+            // Example: 2024-01-01 13:11:59.341 (No offset, milliseconds)
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS"),
+            // Example: 2024-01-01 13:11:59 (No offset, no fractional seconds)
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
+            // Fallback for ISO_OFFSET_DATE_TIME which might handle some variations
+            DateTimeFormatter.ISO_OFFSET_DATE_TIME
+    };
+
+    private CsvTimestampParser() {
+    }
+
+    /**
+     * Parses a CSV timestamp cell into the local date it was recorded on.
+     *
+     * @return the date, or null for empty/"NULL" cells and unparseable values
+     */
+    static LocalDate parse(String timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        String trimmed = timestamp.trim(); // returns the same instance when there is nothing to trim
+        if (trimmed.isEmpty() || trimmed.equalsIgnoreCase("NULL")) {
+            return null;
+        }
+        LocalDate date = parseFast(trimmed);
+        return date != null ? date : parseWithFormatters(trimmed);
+    }
+
+    /**
+     * Hand-rolled parser for {@code yyyy-MM-dd[ T]HH:mm:ss[.f{1,9}][Z|+hh:mm|-hh:mm]}.
+     * Like {@code OffsetDateTime.toLocalDate()}, the date is taken as written, not shifted to UTC.
+     *
+     * @return the date, or null if the value does not have exactly that shape
+     */
+    static LocalDate parseFast(CharSequence s) {
+        int len = s.length();
+        if (len < 19
+                || s.charAt(4) != '-' || s.charAt(7) != '-'
+                || (s.charAt(10) != ' ' && s.charAt(10) != 'T')
+                || s.charAt(13) != ':' || s.charAt(16) != ':') {
+            return null;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        int second = digits(s, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+
+        int i = 19;
+        if (i < len && s.charAt(i) == '.') {
+            int fractionStart = ++i;
+            while (i < len && isDigit(s.charAt(i))) {
+                i++;
+            }
+            int fractionDigits = i - fractionStart;
+            if (fractionDigits < 1 || fractionDigits > 9) {
+                return null;
+            }
+        }
+        if (i < len) {
+            char sign = s.charAt(i);
+            if (sign == 'Z') {
+                i++;
+            } else if (sign == '+' || sign == '-') {
+                if (i + 6 > len || s.charAt(i + 3) != ':') {
+                    return null;
+                }
+                int offsetHours = digits(s, i + 1, 2);
+                int offsetMinutes = digits(s, i + 4, 2);
+                if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+                    return null;
+                }
+                i += 6;
+            } else {
+                return null;
+            }
+        }
+        if (i != len || day > lengthOfMonth(year, month)) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    // Slow path, kept for shapes the fast path does not recognise
+    static LocalDate parseWithFormatters(String timestamp) {
+        for (DateTimeFormatter formatter : DATE_TIME_FORMATTERS) {
+            try {
+                return OffsetDateTime.parse(timestamp, formatter).toLocalDate();
+            } catch (DateTimeParseException e) {
+                // Try next formatter if current one fails
+            }
+        }
+        System.err.println("Warning: Could not parse timestamp '" + timestamp + "'. Tried all known formats.");
+        return null;
+    }
+
+    // Returns the non-negative value of count ASCII digits, or -1 if any character is not a digit
+    private static int digits(CharSequence s, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> Year.isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+}
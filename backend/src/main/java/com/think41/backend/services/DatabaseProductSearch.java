@@ -0,0 +1,75 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ProductSearchResult;
+import com.think41.backend.DTO.ProductSearchView;
+import com.think41.backend.Repo.ProductRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * {@link ProductSearch} executed by PostgreSQL ({@code product.search.mode=database}), for deployments
+ * that can't hold the catalog in memory.
+ * <p>
+ * Queries run as a prefix-aware full-text search over name, brand and category. When that finds
+ * nothing, a pg_trgm similarity search runs instead, so typos still match. Both are served by GIN
+ * indexes created here at startup. Both return projections, not entities, with {@code LIMIT} applied in SQL.
+ */
+@Component
+@ConditionalOnProperty(name = "product.search.mode", havingValue = "database")
+public class DatabaseProductSearch implements ProductSearch {
+
+    private static final List<String> INDEX_DDL = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING gin (" +
+                    ProductRepository.SEARCH_VECTOR + ")",
+            "CREATE INDEX IF NOT EXISTS idx_products_search_trgm ON products USING gin (" +
+                    ProductRepository.SEARCH_TEXT + " gin_trgm_ops)");
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseProductSearch(ProductRepository productRepository, JdbcTemplate jdbcTemplate) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Runs after the CSV loader, so a first bulk load isn't slowed down by index maintenance
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        for (String ddl : INDEX_DDL) {
+            try {
+                jdbcTemplate.execute(ddl);
+            } catch (DataAccessException e) {
+                System.err.println("Could not create product search index (" + ddl + "): " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public List<ProductSearchResult> search(String query, int limit) {
+        List<String> tokens = ProductInvertedIndex.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        PageRequest page = PageRequest.of(0, limit);
+
+        // Tokens contain only letters and digits, so they are safe to_tsquery operands
+        String tsQuery = tokens.stream().map(token -> token + ":*").collect(Collectors.joining(" & "));
+        List<ProductSearchView> matches = productRepository.searchFullText(tsQuery, page).getContent();
+        if (matches.isEmpty()) {
+            matches = productRepository.searchSimilar(String.join(" ", tokens), page).getContent();
+        }
+        return matches.stream()
+                .map(view -> new ProductSearchResult(view.getId(), view.getName(), view.getBrand(),
+                        view.getCategory(), view.getDepartment(), view.getRetailPrice()))
+                .toList();
+    }
+}
@@ -1,34 +1,83 @@
 package com.think41.backend.services;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class GroqApiClient {
 
-    private final WebClient webClient;
+    private static final Logger log = LoggerFactory.getLogger(GroqApiClient.class);
+
+    private final GroqTransport transport;
     private final String modelName;
     private final ObjectMapper objectMapper; // For JSON manipulation
+    private final double temperature;
+    private final int maxTokens;
+    // Completed answers keyed by a hash of the normalized request; null when caching is off for this configuration
+    private final Cache<String, String> responseCache;
+    // Upstream calls in progress, keyed like the cache, so concurrent identical requests make one call
+    private final Map<String, Mono<String>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedRequests;
+    private final Counter promptTokens;
+    private final Counter completionTokens;
+    private final MeterRegistry meterRegistry;
 
-    public GroqApiClient(@Value("${groq.api.url}") String groqApiUrl,
-                         @Value("${groq.api.key}") String groqApiKey,
-                         @Value("${groq.model.name}") String modelName,
-                         WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.baseUrl(groqApiUrl)
-                .defaultHeader("Authorization", "Bearer " + groqApiKey)
-                .build();
+    public GroqApiClient(@Value("${groq.model.name}") String modelName,
+                         @Value("${groq.temperature:0.7}") double temperature,
+                         @Value("${groq.max-tokens:500}") int maxTokens,
+                         @Value("${groq.cache.enabled:false}") boolean cacheEnabled,
+                         @Value("${groq.cache.ttl:10m}") Duration cacheTtl,
+                         @Value("${groq.cache.max-entries:10000}") long cacheMaxEntries,
+                         @Value("${groq.cache.max-temperature:0}") double cacheMaxTemperature,
+                         GroqTransport transport,
+                         MeterRegistry meterRegistry) {
+        this.transport = transport;
         this.modelName = modelName;
         this.objectMapper = new ObjectMapper();
+        this.temperature = temperature;
+        this.maxTokens = maxTokens;
+        this.coalescedRequests = Counter.builder("groq.requests.coalesced")
+                .description("Chat completions served by joining an identical request already in flight")
+                .register(meterRegistry);
+        this.promptTokens = tokenCounter(meterRegistry, "prompt");
+        this.completionTokens = tokenCounter(meterRegistry, "completion");
+        this.meterRegistry = meterRegistry;
+
+        // Above the configured temperature answers are meant to vary, so they are never reused
+        if (cacheEnabled && temperature <= cacheMaxTemperature) {
+            this.responseCache = Caffeine.newBuilder()
+                    .maximumSize(cacheMaxEntries)
+                    .expireAfterWrite(cacheTtl)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, responseCache, "groq.responses");
+        } else {
+            this.responseCache = null;
+        }
     }
 
     /**
@@ -38,6 +87,140 @@ public class GroqApiClient {
      * @return The content of the AI's response message.
      */
     public Mono<String> getChatCompletion(List<Map<String, String>> messages) {
+        ObjectNode requestBody = buildRequestBody(messages, false);
+        Mono<String> completion = transport.post(requestBody)
+                .doOnNext(jsonNode -> recordUsage(jsonNode.path("usage")))
+                .map(jsonNode -> withNativeToolCalls(jsonNode.at("/choices/0/message/content").asText(),
+                        jsonNode.at("/choices/0/message/tool_calls")))
+                .doOnError(e -> onError("completion", e))
+                // Groq still overloaded or unreachable once the transport gave up: a 503 for the caller, not a 500
+                .onErrorMap(GroqTransport::isRetryable,
+                        e -> new GroqUnavailableException("Groq did not answer: " + e.getMessage(), e));
+
+        String key = cacheKey(requestBody);
+        return Mono.defer(() -> {
+            String cached = responseCache != null ? responseCache.getIfPresent(key) : null;
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            // Identical requests already in flight share that call and its result (or error)
+            boolean[] leader = new boolean[1];
+            Mono<String> shared = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                return completion
+                        .doOnNext(content -> {
+                            // Blank answers are usually a failure on Groq's side and worth retrying next time
+                            if (responseCache != null && !content.isBlank()) {
+                                responseCache.put(k, content);
+                            }
+                        })
+                        // Removed before subscribers see the result, so a later request starts a new call
+                        .doOnTerminate(() -> inFlight.remove(k))
+                        .doOnCancel(() -> inFlight.remove(k))
+                        .cache();
+            });
+            if (!leader[0]) {
+                coalescedRequests.increment();
+            }
+            return shared;
+        });
+    }
+
+    /**
+     * Calls the Groq API in streaming mode ("stream": true) and emits the content deltas as they arrive.
+     *
+     * @param messages List of messages in the conversation (role: user/assistant, content: message)
+     * @return The pieces of the AI's response message, in order; completes when Groq sends [DONE].
+     */
+    public Flux<String> streamChatCompletion(List<Map<String, String>> messages) {
+        return Flux.defer(() -> {
+            // Native tool calls stream as fragments per index and are only usable once complete
+            Map<Integer, ObjectNode> toolCalls = new TreeMap<>();
+            Flux<String> content = transport.stream(buildRequestBody(messages, true))
+                    .<String>handle((data, sink) -> {
+                        try {
+                            // Each chunk carries the next piece of the message in choices[0].delta.content
+                            JsonNode chunk = objectMapper.readTree(data);
+                            // Groq reports usage on the last chunk, under x_groq (or at the top level when asked via stream_options)
+                            recordUsage(chunk.has("usage") ? chunk.get("usage") : chunk.at("/x_groq/usage"));
+                            JsonNode delta = chunk.at("/choices/0/delta");
+                            delta.path("tool_calls").forEach(fragment -> mergeToolCallFragment(toolCalls, fragment));
+                            String text = delta.path("content").asText();
+                            if (!text.isEmpty()) {
+                                sink.next(text);
+                            }
+                        } catch (JsonProcessingException e) {
+                            sink.error(e);
+                        }
+                    });
+            return content.concatWith(Flux.defer(() -> {
+                String rendered = withNativeToolCalls("", objectMapper.valueToTree(toolCalls.values()));
+                return rendered.isEmpty() ? Flux.<String>empty() : Flux.just(rendered);
+            }));
+        }).doOnError(e -> onError("stream", e));
+    }
+
+    private void recordUsage(JsonNode usage) {
+        if (usage.isObject()) {
+            promptTokens.increment(usage.path("prompt_tokens").asLong());
+            completionTokens.increment(usage.path("completion_tokens").asLong());
+        }
+    }
+
+    // Errors are counted by exception type, which stays a small set (transport, timeout, circuit open, parsing)
+    private void onError(String mode, Throwable e) {
+        Counter.builder("groq.errors")
+                .description("Chat completions that failed after the transport gave up")
+                .tag("mode", mode)
+                .tag("exception", e.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+        log.warn("Groq {} failed: {}", mode, e.getMessage());
+    }
+
+    private Counter tokenCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("groq.tokens")
+                .description("Tokens billed by Groq, from the usage field of its responses")
+                .baseUnit("tokens")
+                .tag("type", type)
+                .tag("model", modelName)
+                .register(meterRegistry);
+    }
+
+    // Native tool_calls are rendered in the prompt's text format, so callers handle both the same way
+    static String withNativeToolCalls(String content, JsonNode nativeToolCalls) {
+        if (nativeToolCalls == null || !nativeToolCalls.isArray() || nativeToolCalls.isEmpty()) {
+            return content;
+        }
+        StringBuilder rendered = new StringBuilder(content);
+        for (ToolCallExtractor.ToolCall call : ToolCallExtractor.fromNativeToolCalls(nativeToolCalls)) {
+            if (rendered.length() > 0) {
+                rendered.append('\n');
+            }
+            rendered.append(call.toJson());
+        }
+        return rendered.toString();
+    }
+
+    // Streamed fragments carry the name once and the arguments string in pieces
+    private void mergeToolCallFragment(Map<Integer, ObjectNode> toolCalls, JsonNode fragment) {
+        ObjectNode toolCall = toolCalls.computeIfAbsent(fragment.path("index").asInt(toolCalls.size()), index -> {
+            ObjectNode empty = objectMapper.createObjectNode();
+            empty.putObject("function").put("name", "").put("arguments", "");
+            return empty;
+        });
+        ObjectNode function = (ObjectNode) toolCall.get("function");
+        JsonNode name = fragment.at("/function/name");
+        if (name.isTextual()) {
+            function.put("name", function.get("name").asText() + name.asText());
+        }
+        JsonNode arguments = fragment.at("/function/arguments");
+        if (arguments.isTextual()) {
+            function.put("arguments", function.get("arguments").asText() + arguments.asText());
+        }
+    }
+
+    ObjectNode buildRequestBody(List<Map<String, String>> messages, boolean stream) {
         ObjectNode requestBody = objectMapper.createObjectNode();
         requestBody.put("model", modelName);
 
@@ -49,14 +232,33 @@ public class GroqApiClient {
             messagesNode.add(messageNode);
         });
         requestBody.set("messages", messagesNode);
-        requestBody.put("temperature", 0.7); // Adjust as needed
-        requestBody.put("max_tokens", 500); // Adjust as needed
-
-        return webClient.post()
-                .bodyValue(requestBody.toString())
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .map(jsonNode -> jsonNode.at("/choices/0/message/content").asText())
-                .doOnError(e -> System.err.println("Error calling Groq API: " + e.getMessage()));
+        requestBody.put("temperature", temperature);
+        requestBody.put("max_tokens", maxTokens);
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+        return requestBody;
+    }
+
+    // Distinct requests currently waiting on Groq
+    int inFlightRequests() {
+        return inFlight.size();
+    }
+
+    // SHA-256 of the request with message text trimmed and whitespace runs collapsed, so prompts that
+    // differ only in spacing share an entry. Model and generation parameters are part of the body.
+    static String cacheKey(ObjectNode requestBody) {
+        ObjectNode normalized = requestBody.deepCopy();
+        for (JsonNode message : normalized.path("messages")) {
+            String content = message.path("content").asText();
+            ((ObjectNode) message).put("content", content.strip().replaceAll("\\s+", " "));
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(normalized.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
\ No newline at end of file
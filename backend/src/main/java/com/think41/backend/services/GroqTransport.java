@@ -0,0 +1,348 @@
+package com.think41.backend.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * HTTP transport for the Groq chat completions endpoint, so that a slow or failing upstream can't hold
+ * a chat request indefinitely.
+ * <p>
+ * Requests go through a sized, keep-alive connection pool (HTTP/2 over https) with connect and read
+ * timeouts. Each attempt has its own timeout and the whole call a deadline. 429, 5xx, timeouts and
+ * connection errors are retried with jittered exponential backoff, waiting as long as
+ * {@code Retry-After} asks. A {@link CircuitBreaker} fails calls fast with
+ * {@link GroqUnavailableException} while Groq keeps failing. Non-streaming calls can be hedged: if the
+ * first attempt is slower than the recent p95, a second copy is sent and the first answer wins.
+ * Streams are only retried until their first chunk, so no token is ever emitted twice.
+ */
+@Component
+public class GroqTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(GroqTransport.class);
+
+    private static final int LATENCY_SAMPLES = 200;
+    private static final int MIN_LATENCY_SAMPLES = 20; // no hedging until p95 means something
+
+    private final GroqTransportProperties properties;
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Counter retries;
+    private final Counter hedges;
+    private final Counter rejected;
+
+    private final List<AttemptListener> attemptListeners = new CopyOnWriteArrayList<>();
+
+    private final long[] latencies = new long[LATENCY_SAMPLES]; // nanos of recent successful attempts; guarded by latencyLock
+    private final ReentrantLock latencyLock = new ReentrantLock();
+    private int latencyCount;
+    private int latencyNext;
+
+    public GroqTransport(@Value("${groq.api.url}") String groqApiUrl,
+                         @Value("${groq.api.key}") String groqApiKey,
+                         GroqTransportProperties properties,
+                         WebClient.Builder webClientBuilder,
+                         MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.connectionProvider = ConnectionProvider.builder("groq")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getMaxPendingAcquires())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .maxLifeTime(properties.getMaxLifeTime())
+                .evictInBackground(properties.getMaxIdleTime())
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(properties.getResponseTimeout());
+        // h2c isn't negotiated, so plain http (local stubs) stays on HTTP/1.1
+        if (properties.isHttp2() && groqApiUrl.startsWith("https:")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+        this.webClient = webClientBuilder.clone()
+                .baseUrl(groqApiUrl)
+                .defaultHeader("Authorization", "Bearer " + groqApiKey)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+
+        this.circuitBreaker = new CircuitBreaker(properties.getCircuitBreakerWindow(),
+                properties.getCircuitBreakerMinimumCalls(), properties.getCircuitBreakerFailureRate(),
+                properties.getCircuitBreakerOpenDuration());
+        this.retries = Counter.builder("groq.requests.retried")
+                .description("Groq attempts repeated after a retryable failure")
+                .register(meterRegistry);
+        this.hedges = Counter.builder("groq.requests.hedged")
+                .description("Second copies sent for slow Groq requests")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("groq.requests.rejected")
+                .description("Groq calls failed fast by the open circuit breaker")
+                .register(meterRegistry);
+        Gauge.builder("groq.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Told about every attempt: its latency (to the full body, or a stream's first chunk) or that
+     * Groq was overloaded (429, 503 or a timeout).
+     */
+    public interface AttemptListener {
+        void onAttempt(long latencyNanos, boolean overloaded);
+    }
+
+    public void addAttemptListener(AttemptListener listener) {
+        attemptListeners.add(listener);
+    }
+
+    /**
+     * POSTs a non-streaming request and returns the parsed response body.
+     */
+    public Mono<JsonNode> post(ObjectNode requestBody) {
+        String body = requestBody.toString();
+        return Mono.defer(() -> hedged(body))
+                .retryWhen(retryPolicy(GroqTransport::isRetryable))
+                .timeout(properties.getDeadline());
+    }
+
+    /**
+     * POSTs a streaming request and emits the data of each server-sent event until {@code [DONE]}.
+     */
+    public Flux<String> stream(ObjectNode requestBody) {
+        String body = requestBody.toString();
+        return Flux.defer(() -> {
+            AtomicBoolean started = new AtomicBoolean();
+            return Flux.defer(() -> {
+                        if (!circuitBreaker.tryAcquire()) {
+                            return Flux.<String>error(circuitOpen());
+                        }
+                        long startNanos = System.nanoTime();
+                        return webClient.post()
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.TEXT_EVENT_STREAM)
+                                .bodyValue(body)
+                                .retrieve()
+                                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                                .mapNotNull(ServerSentEvent::data)
+                                .takeWhile(data -> !"[DONE]".equals(data.trim()))
+                                // The first chunk must arrive within the attempt timeout; after that only
+                                // the connection's read timeout applies
+                                .timeout(Mono.delay(properties.getAttemptTimeout()), data -> Mono.never())
+                                .doOnNext(data -> {
+                                    if (started.compareAndSet(false, true)) {
+                                        notifyListeners(System.nanoTime() - startNanos, false);
+                                    }
+                                })
+                                .doOnComplete(circuitBreaker::onSuccess)
+                                .doOnError(this::recordFailure)
+                                .doOnCancel(circuitBreaker::onIgnored);
+                    })
+                    .retryWhen(retryPolicy(error -> !started.get() && isRetryable(error)));
+        });
+    }
+
+    // One attempt, plus a second copy if the first is still running after the hedge delay
+    private Mono<JsonNode> hedged(String body) {
+        Duration hedgeDelay = hedgeDelay();
+        Mono<JsonNode> primary = attempt(body, false);
+        if (hedgeDelay == null) {
+            return primary;
+        }
+        // A failed hedge is dropped; the primary's outcome decides whether to retry
+        Mono<JsonNode> hedge = Mono.delay(hedgeDelay)
+                .then(Mono.defer(() -> attempt(body, true)))
+                .onErrorResume(e -> Mono.never());
+        return Mono.firstWithSignal(primary, hedge);
+    }
+
+    private Mono<JsonNode> attempt(String body, boolean hedge) {
+        if (!circuitBreaker.tryAcquire()) {
+            return hedge ? Mono.never() : Mono.error(circuitOpen());
+        }
+        if (hedge) {
+            hedges.increment();
+        }
+        long startNanos = System.nanoTime();
+        return webClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(properties.getAttemptTimeout())
+                .doOnSuccess(response -> {
+                    circuitBreaker.onSuccess();
+                    recordLatency(System.nanoTime() - startNanos);
+                    notifyListeners(System.nanoTime() - startNanos, false);
+                })
+                .doOnError(this::recordFailure)
+                .doOnCancel(circuitBreaker::onIgnored);
+    }
+
+    private Retry retryPolicy(Predicate<Throwable> retryable) {
+        return Retry.from(signals -> signals.concatMap(signal -> {
+            Throwable error = signal.failure();
+            long attempts = signal.totalRetries() + 1;
+            Duration delay = attempts < properties.getMaxAttempts() && retryable.test(error)
+                    ? retryDelay(error, attempts)
+                    : null;
+            if (delay == null) {
+                return Mono.<Long>error(error);
+            }
+            retries.increment();
+            log.warn("Groq call failed ({}), retrying in {} ms", error.getMessage(), delay.toMillis());
+            return Mono.delay(delay);
+        }));
+    }
+
+    // Retry-After when Groq sends one, otherwise exponential backoff with jitter; null means don't retry
+    Duration retryDelay(Throwable error, long attempts) {
+        if (error instanceof WebClientResponseException response) {
+            Duration retryAfter = parseRetryAfter(response.getHeaders().getFirst("Retry-After"));
+            if (retryAfter != null) {
+                return retryAfter.compareTo(properties.getMaxRetryAfter()) > 0 ? null : retryAfter;
+            }
+        }
+        long minNanos = properties.getMinBackoff().toNanos();
+        long backoffNanos = Math.min(properties.getMaxBackoff().toNanos(),
+                minNanos << Math.min(30, attempts - 1));
+        double jitter = Math.min(1.0, Math.max(0.0, properties.getJitter()));
+        return Duration.ofNanos((long) (backoffNanos * (1 - jitter * ThreadLocalRandom.current().nextDouble())));
+    }
+
+    // Seconds, or an HTTP date
+    static Duration parseRetryAfter(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(header.strip())));
+        } catch (NumberFormatException e) {
+            try {
+                Duration untilThen = Duration.between(ZonedDateTime.now(),
+                        ZonedDateTime.parse(header.strip(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return untilThen.isNegative() ? Duration.ZERO : untilThen;
+            } catch (DateTimeParseException notADate) {
+                return null;
+            }
+        }
+    }
+
+    static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            HttpStatusCode status = response.getStatusCode();
+            return status.value() == 429 || status.is5xxServerError();
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+
+    private static boolean isOverload(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status == 429 || status == 503;
+        }
+        return error instanceof TimeoutException;
+    }
+
+    private void notifyListeners(long latencyNanos, boolean overloaded) {
+        for (AttemptListener listener : attemptListeners) {
+            listener.onAttempt(latencyNanos, overloaded);
+        }
+    }
+
+    // Only errors that say Groq is unhealthy count against the breaker; a 400 is our problem
+    private void recordFailure(Throwable error) {
+        if (isOverload(error)) {
+            notifyListeners(0, true);
+        }
+        if (isRetryable(error)) {
+            circuitBreaker.onFailure();
+        } else if (!(error instanceof GroqUnavailableException)) {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    private GroqUnavailableException circuitOpen() {
+        rejected.increment();
+        return new GroqUnavailableException("Groq is failing; calls are paused for up to "
+                + properties.getCircuitBreakerOpenDuration().toSeconds() + " s");
+    }
+
+    private Duration hedgeDelay() {
+        if (!properties.isHedgeEnabled()) {
+            return null;
+        }
+        if (properties.getHedgeDelay().isPositive()) {
+            return properties.getHedgeDelay();
+        }
+        long[] samples;
+        latencyLock.lock();
+        try {
+            if (latencyCount < MIN_LATENCY_SAMPLES) {
+                return null;
+            }
+            samples = Arrays.copyOf(latencies, latencyCount);
+        } finally {
+            latencyLock.unlock();
+        }
+        Arrays.sort(samples);
+        Duration p95 = Duration.ofNanos(samples[(int) Math.ceil(samples.length * 0.95) - 1]);
+        return p95.compareTo(properties.getHedgeMinDelay()) < 0 ? properties.getHedgeMinDelay() : p95;
+    }
+
+    private void recordLatency(long nanos) {
+        latencyLock.lock();
+        try {
+            latencies[latencyNext] = nanos;
+            latencyNext = (latencyNext + 1) % LATENCY_SAMPLES;
+            latencyCount = Math.min(LATENCY_SAMPLES, latencyCount + 1);
+        } finally {
+            latencyLock.unlock();
+        }
+    }
+
+    CircuitBreaker.State circuitState() {
+        return circuitBreaker.state();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.dispose();
+    }
+}
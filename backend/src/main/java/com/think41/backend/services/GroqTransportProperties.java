@@ -0,0 +1,52 @@
+package com.think41.backend.services;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Connection pool, timeout, retry, circuit breaker and hedging settings for {@link GroqTransport}
+ * ({@code groq.transport.*}). Grouped in one object so tests can change a few and keep the rest.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "groq.transport")
+public class GroqTransportProperties {
+
+    // Connection pool: idle connections are kept alive and reused; HTTP/2 multiplexes over https
+    private int maxConnections = 50;
+    private int maxPendingAcquires = 500;
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+    private boolean http2 = true;
+
+    private Duration connectTimeout = Duration.ofSeconds(3);
+    // Longest silence while reading a response, including between streamed chunks
+    private Duration responseTimeout = Duration.ofSeconds(30);
+    // One attempt, up to the full body (or the first streamed chunk)
+    private Duration attemptTimeout = Duration.ofSeconds(30);
+    // Everything for one completion: attempts, backoff and hedges
+    private Duration deadline = Duration.ofSeconds(60);
+
+    // Retries on 429, 5xx, timeouts and connection errors, with exponential backoff and jitter
+    private int maxAttempts = 3;
+    private Duration minBackoff = Duration.ofMillis(250);
+    private Duration maxBackoff = Duration.ofSeconds(4);
+    private double jitter = 0.5;
+    // A longer Retry-After than this fails the call instead of waiting
+    private Duration maxRetryAfter = Duration.ofSeconds(10);
+
+    // Opens when at least failureRate of the last window calls failed, then lets one trial call through after openDuration
+    private int circuitBreakerWindow = 20;
+    private int circuitBreakerMinimumCalls = 10;
+    private double circuitBreakerFailureRate = 0.5;
+    private Duration circuitBreakerOpenDuration = Duration.ofSeconds(30);
+
+    // Sends a second copy of a non-streaming request that is slower than hedgeDelay (zero = p95 of recent calls)
+    private boolean hedgeEnabled = false;
+    private Duration hedgeDelay = Duration.ZERO;
+    private Duration hedgeMinDelay = Duration.ofMillis(500);
+}
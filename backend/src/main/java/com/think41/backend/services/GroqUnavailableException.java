@@ -0,0 +1,13 @@
+package com.think41.backend.services;
+
+// Thrown without calling Groq while its circuit breaker is open, or when Groq kept failing through every retry
+public class GroqUnavailableException extends RuntimeException {
+
+    public GroqUnavailableException(String message) {
+        super(message);
+    }
+
+    public GroqUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,195 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ProductSearchResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@link ProductSearch} over a {@link ProductInvertedIndex} of the whole catalog held in memory
+ * ({@code product.search.mode=memory}, the default).
+ * <p>
+ * The index is built from {@code products} once the application is ready (after the CSV loader) and
+ * is then kept current by {@link #refresh}, which {@link ProductIndexListener} calls after product
+ * writes commit. It is rebuilt in the background when more than a quarter of its documents are stale
+ * versions; changes made meanwhile are replayed onto the new index before it replaces the old one.
+ */
+@Component
+@ConditionalOnProperty(name = "product.search.mode", havingValue = "memory", matchIfMissing = true)
+public class InMemoryProductSearch implements ProductSearch {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryProductSearch.class);
+
+    private static final String SELECT_PRODUCTS = "SELECT id, name, brand, category, department, retail_price FROM products";
+    private static final int FETCH_SIZE = 10_000;
+    private static final int REFRESH_BATCH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ProductInvertedIndex index = new ProductInvertedIndex(); // guarded by lock
+    private Set<Long> changedDuringRebuild; // non-null while a rebuild runs; guarded by lock
+
+    public InMemoryProductSearch(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public List<ProductSearchResult> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        long startNanos = System.nanoTime();
+        rebuild();
+        System.out.printf("Indexed %d products for search in %.1f s.%n",
+                size(), (System.nanoTime() - startNanos) / 1_000_000_000.0);
+    }
+
+    /**
+     * Re-reads the given products and updates the index; ids no longer in the table are removed.
+     */
+    public void refresh(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(productIds);
+        List<ProductSearchResult> current = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += REFRESH_BATCH) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + REFRESH_BATCH));
+            current.addAll(jdbcTemplate.query(
+                    SELECT_PRODUCTS + " WHERE id IN (" + String.join(",", Collections.nCopies(batch.size(), "?")) + ")",
+                    (rs, rowNum) -> toResult(rs),
+                    batch.toArray()));
+        }
+
+        lock.writeLock().lock();
+        try {
+            ids.forEach(index::remove);
+            current.forEach(index::add);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.addAll(ids);
+            } else if (index.deletedCount() > Math.max(10_000, index.size() / 4)) {
+                changedDuringRebuild = new HashSet<>();
+                rebuilder.execute(this::rebuild);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // For writes too large to track one by one (bulk loads)
+    public void rebuildAsync() {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild == null) {
+                changedDuringRebuild = new HashSet<>();
+                rebuilder.execute(this::rebuild);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild == null) {
+                changedDuringRebuild = new HashSet<>();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        ProductInvertedIndex rebuilt = new ProductInvertedIndex();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(SELECT_PRODUCTS);
+                statement.setFetchSize(FETCH_SIZE); // stream rows instead of buffering the whole table
+                return statement;
+            }, (RowCallbackHandler) rs -> rebuilt.add(toResult(rs))));
+        } catch (RuntimeException e) {
+            log.error("Error building the product search index", e);
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        Set<Long> changed;
+        lock.writeLock().lock();
+        try {
+            changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Rows read before these changes committed may be stale in the new index
+        refresh(changed);
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static ProductSearchResult toResult(ResultSet rs) throws SQLException {
+        double retailPrice = rs.getDouble("retail_price");
+        Double price = rs.wasNull() ? null : retailPrice;
+        return new ProductSearchResult(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("brand"),
+                rs.getString("category"),
+                rs.getString("department"),
+                price);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+}
@@ -0,0 +1,100 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ProductSearchResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes messages whose answer needs no language model, so {@link ChatService} can answer them
+ * from a template instead of two Groq round-trips.
+ * <p>
+ * Only whole-message matches count: a single order lookup ("where is my order #12345?") or a
+ * request for a product named exactly ("do you have the Slim Fit T-Shirt?") that no other product
+ * shares its name with and whose brand, price and category are all known. Anything with more to it, such as several orders, a bare phrase or a
+ * follow-up question, returns empty and goes to the LLM.
+ */
+@Component
+public class IntentRouter {
+
+    private static final Pattern ORDER_STATUS = Pattern.compile(
+            "(?:(?:hi|hello|hey)[,!.]?\\s+)?(?:please\\s+)?"
+                    + "(?:(?:can you\\s+)?(?:check|track)(?: the status of)?|what(?:'s| is) the status of|status of|where(?:'s| is))?\\s*"
+                    + "(?:my\\s+|the\\s+)?order\\s*(?:id|number|no\\.?)?\\s*(?::|#)?\\s*(\\d{1,18})"
+                    + "(?:\\s+status)?(?:,?\\s*please)?\\s*[?.!]*",
+            Pattern.CASE_INSENSITIVE);
+
+    // The lead-in is required: a bare phrase that happens to be a product name is not a request for it
+    private static final Pattern PRODUCT_REQUEST = Pattern.compile(
+            "(?:do you (?:have|sell|carry)|is|are|show me|i(?:'m| am) looking for|looking for)\\s+"
+                    + "(?:(?:the|a|an)\\s+)?(.+?)(?:\\s+in stock)?\\s*[?.!]*",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final int MAX_PRODUCT_NAME_WORDS = 12; // longer messages are sentences, not product names
+
+    private final ProductSearch productSearch;
+    private final boolean enabled;
+
+    public IntentRouter(ProductSearch productSearch,
+                        @Value("${chat.intent-router.enabled:true}") boolean enabled) {
+        this.productSearch = productSearch;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the intent if the message matches one with certainty, otherwise empty
+     */
+    public Optional<Intent> route(String message) {
+        if (!enabled || message == null || message.isBlank()) {
+            return Optional.empty();
+        }
+        String text = message.strip();
+
+        Matcher order = ORDER_STATUS.matcher(text);
+        if (order.matches()) {
+            return Optional.of(new OrderStatusIntent(Long.parseLong(order.group(1))));
+        }
+
+        Matcher product = PRODUCT_REQUEST.matcher(text);
+        if (product.matches()) {
+            String name = normalize(product.group(1));
+            if (name.isEmpty() || name.split(" ").length > MAX_PRODUCT_NAME_WORDS) {
+                return Optional.empty();
+            }
+            // Only a single exact name match is certain; best-effort results and products sharing a name
+            // (sizes, colours, departments) are left to the LLM to judge
+            List<ProductSearchResult> exact = productSearch.search(name, 5).stream()
+                    .filter(candidate -> normalize(candidate.getName()).equals(name))
+                    .toList();
+            if (exact.size() == 1 && quotable(exact.get(0))) {
+                return Optional.of(new ProductIntent(exact.get(0)));
+            }
+        }
+        return Optional.empty();
+    }
+
+    // The templated answer quotes brand, price and category; a product missing any of them is left to the LLM
+    private static boolean quotable(ProductSearchResult product) {
+        return product.getBrand() != null && !product.getBrand().isBlank()
+                && product.getRetailPrice() != null
+                && product.getCategory() != null && !product.getCategory().isBlank();
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).replace("'", "").replaceAll("[^\\p{L}\\p{N}]+", " ").strip();
+    }
+
+    public sealed interface Intent permits OrderStatusIntent, ProductIntent {
+    }
+
+    public record OrderStatusIntent(long orderId) implements Intent {
+    }
+
+    public record ProductIntent(ProductSearchResult product) implements Intent {
+    }
+}
@@ -0,0 +1,89 @@
+package com.think41.backend.services;
+
+/**
+ * Minimal open-addressing hash set of primitive longs, used by the loader to remember which
+ * parent ids exist. Costs roughly 16 bytes per id instead of a boxed key plus a managed entity.
+ * Not thread-safe.
+ */
+final class LongIdSet {
+
+    private static final long EMPTY = 0L; // 0 is tracked separately so it can mark free slots
+
+    private long[] slots;
+    private int size;
+    private boolean containsZero;
+
+    LongIdSet() {
+        this(1024);
+    }
+
+    LongIdSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        slots = new long[capacity];
+    }
+
+    boolean add(long id) {
+        if (id == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 2 > slots.length) {
+            resize();
+        }
+        int mask = slots.length - 1;
+        int index = mix(id) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == id) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = id;
+        size++;
+        return true;
+    }
+
+    boolean contains(long id) {
+        if (id == EMPTY) {
+            return containsZero;
+        }
+        int mask = slots.length - 1;
+        int index = mix(id) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == id) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize() {
+        long[] old = slots;
+        slots = new long[old.length * 2];
+        int mask = slots.length - 1;
+        for (long id : old) {
+            if (id != EMPTY) {
+                int index = mix(id) & mask;
+                while (slots[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = id;
+            }
+        }
+    }
+
+    // Sequential ids would otherwise cluster into long probe runs
+    private static int mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,67 @@
+package com.think41.backend.services;
+
+import com.think41.backend.entity.listener.OrderWrittenEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Drops an order's cached status when the order is written. Events arrive synchronously from
+ * {@link com.think41.backend.entity.listener.OrderWriteListener}, so they run inside the writing transaction.
+ */
+@Component
+public class OrderCacheEvictionListener {
+
+    private static final int MAX_TRACKED_IDS = 1000;
+
+    private final ToolResultCache toolResultCache;
+
+    public OrderCacheEvictionListener(ToolResultCache toolResultCache) {
+        this.toolResultCache = toolResultCache;
+    }
+
+    @EventListener
+    public void onOrderWritten(OrderWrittenEvent event) {
+        Long orderId = event.orderId();
+        toolResultCache.evictOrder(orderId);
+        // A lookup between the flush and the commit still reads the old row; evict again once it is visible
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Set<Long> written = writtenInTransaction();
+            if (written.size() <= MAX_TRACKED_IDS) {
+                written.add(orderId);
+            }
+        }
+    }
+
+    // Ids written by the current transaction, evicted together after it commits
+    private Set<Long> writtenInTransaction() {
+        @SuppressWarnings("unchecked")
+        Set<Long> orderIds = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (orderIds == null) {
+            Set<Long> ids = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, ids);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // Large batches (e.g. the JPA CSV loader) are cheaper to drop wholesale
+                    if (ids.size() > MAX_TRACKED_IDS) {
+                        toolResultCache.invalidateOrders();
+                    } else {
+                        ids.forEach(toolResultCache::evictOrder);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OrderCacheEvictionListener.this);
+                }
+            });
+            orderIds = ids;
+        }
+        return orderIds;
+    }
+}
@@ -0,0 +1,72 @@
+package com.think41.backend.services;
+
+import com.think41.backend.entity.listener.ProductWrittenEvent;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Passes product writes, announced by {@link com.think41.backend.entity.listener.ProductWriteListener},
+ * to the in-memory search index once they commit. Does nothing when product search runs in the database.
+ */
+@Component
+public class ProductIndexListener {
+
+    private static final int MAX_TRACKED_IDS = 1000;
+
+    private final ObjectProvider<InMemoryProductSearch> productSearch;
+
+    public ProductIndexListener(ObjectProvider<InMemoryProductSearch> productSearch) {
+        this.productSearch = productSearch;
+    }
+
+    @EventListener
+    public void onProductWritten(ProductWrittenEvent event) {
+        InMemoryProductSearch search = productSearch.getIfAvailable();
+        if (search == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            search.refresh(List.of(event.productId()));
+            return;
+        }
+        Set<Long> written = writtenInTransaction(search);
+        if (written.size() <= MAX_TRACKED_IDS) {
+            written.add(event.productId());
+        }
+    }
+
+    // Ids written by the current transaction, re-indexed together after it commits
+    private Set<Long> writtenInTransaction(InMemoryProductSearch search) {
+        @SuppressWarnings("unchecked")
+        Set<Long> productIds = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (productIds == null) {
+            Set<Long> ids = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, ids);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // Large batches (e.g. the JPA CSV loader) are cheaper to re-index wholesale
+                    if (ids.size() > MAX_TRACKED_IDS) {
+                        search.rebuildAsync();
+                    } else {
+                        search.refresh(ids);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ProductIndexListener.this);
+                }
+            });
+            productIds = ids;
+        }
+        return productIds;
+    }
+}
@@ -0,0 +1,427 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ProductSearchResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Inverted index over product name, brand, category and department.
+ * <p>
+ * Each query token matches index terms exactly, by prefix ("jea" finds "jeans") and by shared
+ * trigrams, which catches typos and words inside compounds ("shirt" finds "tshirt"). Scores are
+ * idf-weighted, favour name and brand over category and department, and rank documents matching
+ * more query tokens first. Only the top {@code limit} documents are kept while ranking.
+ * <p>
+ * Updates append a new document and tombstone the old one, so posting lists stay sorted and
+ * append-only; callers rebuild the index once {@link #deletedCount()} grows large. Not thread-safe.
+ */
+final class ProductInvertedIndex {
+
+    static final int NAME = 1;
+    static final int BRAND = 2;
+    static final int CATEGORY = 4;
+    static final int DEPARTMENT = 8;
+
+    private static final int MAX_EXPANSIONS = 64; // per query token, across prefix and trigram matches
+    private static final double MIN_SIMILARITY = 0.4; // trigram Jaccard similarity for a fuzzy match
+    private static final float FUZZY_WEIGHT = 0.5f;
+    private static final int MAX_TERMS_PER_TRIGRAM = 2000; // trigrams common to more terms say little and cost a lot
+    static final int MAX_QUERY_TOKENS = 32; // the rest of a longer query is ignored; Scratch.matched counts in a byte
+
+    private final List<ProductSearchResult> docs = new ArrayList<>();
+    private long[] productIds = new long[16]; // by doc, for tie-breaking without touching the DTOs
+    private final Map<Long, Integer> docByProductId = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private final TreeMap<String, Postings> terms = new TreeMap<>(); // sorted, for prefix ranges
+    private final Map<String, List<String>> termsByTrigram = new HashMap<>();
+    private int deletedCount;
+    private final Queue<Scratch> scratchPool = new ConcurrentLinkedQueue<>(); // searches may run concurrently
+
+    /**
+     * Indexes the product, replacing any earlier version with the same id.
+     */
+    void add(ProductSearchResult product) {
+        remove(product.getId());
+        int doc = docs.size();
+        docs.add(product);
+        if (doc == productIds.length) {
+            productIds = Arrays.copyOf(productIds, doc + (doc >> 1) + 16);
+        }
+        productIds[doc] = product.getId();
+        docByProductId.put(product.getId(), doc);
+
+        Map<String, Integer> fieldsByTerm = new HashMap<>();
+        collect(fieldsByTerm, product.getName(), NAME);
+        collect(fieldsByTerm, product.getBrand(), BRAND);
+        collect(fieldsByTerm, product.getCategory(), CATEGORY);
+        collect(fieldsByTerm, product.getDepartment(), DEPARTMENT);
+        fieldsByTerm.forEach((term, fields) -> terms.computeIfAbsent(term, this::newTerm).add(doc, fields));
+    }
+
+    /**
+     * @return whether the product was indexed
+     */
+    boolean remove(long productId) {
+        Integer doc = docByProductId.remove(productId);
+        if (doc == null) {
+            return false;
+        }
+        deleted.set(doc);
+        docs.set(doc, null);
+        deletedCount++;
+        return true;
+    }
+
+    int size() {
+        return docByProductId.size();
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    List<ProductSearchResult> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0 || docByProductId.isEmpty()) {
+            return List.of();
+        }
+        boolean truncated = tokens.size() > MAX_QUERY_TOKENS;
+        if (truncated) {
+            tokens = tokens.subList(0, MAX_QUERY_TOKENS);
+        }
+
+        // Rarest tokens first: their matches bound the candidates for the conjunctive pass
+        List<Map<String, Float>> expanded = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            expanded.add(expand(tokens.get(i), !truncated && i == tokens.size() - 1, limit));
+        }
+        expanded.sort(Comparator.comparingLong(this::postingCount));
+
+        Scratch scratch = borrowScratch();
+        try {
+            // Documents matching every token outrank the rest, so if enough of them exist the others
+            // never need scoring; otherwise fall back to scoring every match of every token
+            if (expanded.size() > 1) {
+                score(scratch, expanded, true);
+                if (scratch.countMatching(expanded.size()) >= limit) {
+                    return topK(scratch, limit);
+                }
+                scratch.reset();
+            }
+            score(scratch, expanded, false);
+            return topK(scratch, limit);
+        } finally {
+            scratch.reset();
+            scratchPool.offer(scratch);
+        }
+    }
+
+    private void score(Scratch scratch, List<Map<String, Float>> expanded, boolean conjunctive) {
+        for (int token = 0; token < expanded.size(); token++) {
+            int matchedSoFar = token;
+            boolean onlyCandidates = conjunctive && token > 0;
+            // A document's best match for this token counts once, however many expansions hit it
+            expanded.get(token).forEach((term, weight) -> {
+                Postings postings = terms.get(term);
+                float idf = (float) Math.log(1.0 + (double) docs.size() / postings.size);
+                for (int i = 0; i < postings.size; i++) {
+                    int doc = postings.docs[i];
+                    if (deleted.get(doc) || onlyCandidates && scratch.matched[doc] != matchedSoFar) {
+                        continue;
+                    }
+                    scratch.max(doc, weight * idf * fieldWeight(postings.fields[i]));
+                }
+            });
+            scratch.endToken();
+        }
+    }
+
+    private long postingCount(Map<String, Float> expansions) {
+        long count = 0;
+        for (String term : expansions.keySet()) {
+            count += terms.get(term).size;
+        }
+        return count;
+    }
+
+    /**
+     * Matching index terms for one query token, with the weight of each kind of match. Prefixes are
+     * expanded for the last token (the user may still be typing it) or for words not in the index;
+     * trigram matches are only looked up while the token has fewer than {@code limit} postings.
+     */
+    private Map<String, Float> expand(String token, boolean last, int limit) {
+        Map<String, Float> expansions = new HashMap<>();
+        if (terms.containsKey(token)) {
+            expansions.put(token, 1.0f);
+        }
+        if (token.length() >= 2 && (last || expansions.isEmpty())) {
+            for (String term : terms.subMap(token, false, token + Character.MAX_VALUE, false).keySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    return expansions;
+                }
+                // The more of the term the user typed, the closer to an exact match
+                expansions.put(term, 0.4f + 0.5f * token.length() / term.length());
+            }
+        }
+
+        if (postingCount(expansions) >= limit) {
+            return expansions;
+        }
+
+        Set<String> tokenTrigrams = trigrams(token);
+        Map<String, Integer> sharedTrigrams = new HashMap<>();
+        for (String trigram : tokenTrigrams) {
+            List<String> withTrigram = termsByTrigram.getOrDefault(trigram, List.of());
+            if (withTrigram.size() <= MAX_TERMS_PER_TRIGRAM) {
+                for (String term : withTrigram) {
+                    sharedTrigrams.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        List<Map.Entry<String, Double>> similar = new ArrayList<>();
+        sharedTrigrams.forEach((term, shared) -> {
+            if (!expansions.containsKey(term)) {
+                // A padded term has as many trigrams as characters, give or take repeats
+                double similarity = (double) shared / (tokenTrigrams.size() + term.length() - shared);
+                if (similarity >= MIN_SIMILARITY) {
+                    similar.add(Map.entry(term, similarity));
+                }
+            }
+        });
+        similar.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        for (Map.Entry<String, Double> entry : similar) {
+            if (expansions.size() >= MAX_EXPANSIONS) {
+                break;
+            }
+            expansions.put(entry.getKey(), (float) (FUZZY_WEIGHT * entry.getValue()));
+        }
+        return expansions;
+    }
+
+    // Bounded min-heap of doc ids, worst at the root, holding the best documents seen so far
+    private List<ProductSearchResult> topK(Scratch scratch, int limit) {
+        int[] heap = new int[Math.min(limit, scratch.matchedCount)];
+        int size = 0;
+        for (int i = 0; i < scratch.matchedCount; i++) {
+            int doc = scratch.matchedDocs[i];
+            if (size < heap.length) {
+                heap[size] = doc;
+                siftUp(scratch, heap, size++);
+            } else if (better(scratch, doc, heap[0])) {
+                heap[0] = doc;
+                siftDown(scratch, heap, size);
+            }
+        }
+        ProductSearchResult[] results = new ProductSearchResult[size];
+        while (size > 0) {
+            results[size - 1] = docs.get(heap[0]);
+            heap[0] = heap[--size];
+            siftDown(scratch, heap, size);
+        }
+        return Arrays.asList(results);
+    }
+
+    // More matched tokens first, then higher score, then lower product id for a stable order
+    private boolean better(Scratch scratch, int a, int b) {
+        if (scratch.matched[a] != scratch.matched[b]) {
+            return scratch.matched[a] > scratch.matched[b];
+        }
+        if (scratch.total[a] != scratch.total[b]) {
+            return scratch.total[a] > scratch.total[b];
+        }
+        return productIds[a] < productIds[b];
+    }
+
+    private void siftUp(Scratch scratch, int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(scratch, heap[parent], heap[index])) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(Scratch scratch, int[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int worst = index;
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                if (better(scratch, heap[worst], heap[child])) {
+                    worst = child;
+                }
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(heap, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+
+    // Score arrays are sized to the whole index, so they are pooled rather than allocated per query
+    private Scratch borrowScratch() {
+        Scratch scratch;
+        while ((scratch = scratchPool.poll()) != null) {
+            if (scratch.capacity() >= docs.size()) {
+                return scratch;
+            }
+        }
+        return new Scratch(docs.size() + (docs.size() >> 3) + 16);
+    }
+
+    private Postings newTerm(String term) {
+        for (String trigram : trigrams(term)) {
+            termsByTrigram.computeIfAbsent(trigram, k -> new ArrayList<>()).add(term);
+        }
+        return new Postings();
+    }
+
+    private static void collect(Map<String, Integer> fieldsByTerm, String text, int field) {
+        for (String term : tokenize(text)) {
+            fieldsByTerm.merge(term, field, (a, b) -> a | b);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        // "Levi's" is indexed and searched as "levis"
+        for (String token : text.toLowerCase(Locale.ROOT).replace("'", "").split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Padded with spaces so short terms get trigrams too and word boundaries count
+    static Set<String> trigrams(String term) {
+        String padded = " " + term + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static float fieldWeight(int fields) {
+        if ((fields & NAME) != 0) {
+            return 3.0f;
+        }
+        if ((fields & BRAND) != 0) {
+            return 2.5f;
+        }
+        if ((fields & CATEGORY) != 0) {
+            return 2.0f;
+        }
+        return 1.0f;
+    }
+
+    // Ascending doc ids (docs are only ever appended) with the fields the term occurs in
+    private static final class Postings {
+        int[] docs = new int[4];
+        byte[] fields = new byte[4];
+        int size;
+
+        void add(int doc, int fieldMask) {
+            if (size == docs.length) {
+                int capacity = size + (size >> 1) + 1;
+                docs = Arrays.copyOf(docs, capacity);
+                fields = Arrays.copyOf(fields, capacity);
+            }
+            docs[size] = doc;
+            fields[size] = (byte) fieldMask;
+            size++;
+        }
+    }
+
+    // Per-query scores indexed by doc id, plus the lists of docs touched so only those are reset afterwards
+    private static final class Scratch {
+        final float[] best;  // best match for the current token
+        final float[] total;
+        final byte[] matched; // query tokens matched
+        int[] tokenDocs = new int[64];
+        int tokenCount;
+        int[] matchedDocs = new int[64];
+        int matchedCount;
+
+        Scratch(int capacity) {
+            best = new float[capacity];
+            total = new float[capacity];
+            matched = new byte[capacity];
+        }
+
+        int capacity() {
+            return best.length;
+        }
+
+        void max(int doc, float score) {
+            if (best[doc] == 0) {
+                tokenDocs = append(tokenDocs, tokenCount++, doc);
+            }
+            best[doc] = Math.max(best[doc], score);
+        }
+
+        void endToken() {
+            for (int i = 0; i < tokenCount; i++) {
+                int doc = tokenDocs[i];
+                if (matched[doc] == 0) {
+                    matchedDocs = append(matchedDocs, matchedCount++, doc);
+                }
+                total[doc] += best[doc];
+                matched[doc]++;
+                best[doc] = 0;
+            }
+            tokenCount = 0;
+        }
+
+        int countMatching(int tokens) {
+            int count = 0;
+            for (int i = 0; i < matchedCount; i++) {
+                if (matched[matchedDocs[i]] == tokens) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        void reset() {
+            for (int i = 0; i < matchedCount; i++) {
+                total[matchedDocs[i]] = 0;
+                matched[matchedDocs[i]] = 0;
+            }
+            matchedCount = 0;
+        }
+
+        private static int[] append(int[] array, int index, int value) {
+            if (index == array.length) {
+                array = Arrays.copyOf(array, array.length * 2);
+            }
+            array[index] = value;
+            return array;
+        }
+    }
+}
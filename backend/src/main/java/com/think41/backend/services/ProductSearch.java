@@ -0,0 +1,19 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ProductSearchResult;
+
+import java.util.List;
+
+/**
+ * Free-text product lookup used by the {@code search_products} chat tool.
+ * The implementation is chosen with {@code product.search.mode}.
+ */
+public interface ProductSearch {
+
+    /**
+     * @param query free text from the user or the LLM, e.g. "levis jeans"
+     * @param limit maximum number of results
+     * @return best matches first, at most {@code limit} of them
+     */
+    List<ProductSearchResult> search(String query, int limit);
+}
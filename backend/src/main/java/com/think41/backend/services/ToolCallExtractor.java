@@ -0,0 +1,299 @@
+package com.think41.backend.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Finds tool calls in LLM output with Jackson's non-blocking parser instead of a regex.
+ * <p>
+ * Every <code>{</code> in the text starts a candidate that is fed to the parser as text arrives; a
+ * candidate that stops being valid JSON is dropped and scanning resumes after its brace, so tool
+ * objects are found inside prose, code fences or lists, with arguments of any JSON type. Recognized
+ * shapes are the prompt format {@code {"tool": "search_products", "query": "jeans"}} and
+ * OpenAI-style {@code {"name": ..., "arguments": ...}}, optionally wrapped in {@code "function"}.
+ * Native {@code tool_calls} arrays from the API are read with {@link #fromNativeToolCalls}.
+ */
+public final class ToolCallExtractor {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private ToolCallExtractor() {
+    }
+
+    /**
+     * @param name      tool name, e.g. {@code check_order_status}
+     * @param arguments the call's arguments by name, in any JSON type
+     */
+    public record ToolCall(String name, ObjectNode arguments) {
+
+        // The argument as text, whatever its JSON type; null if absent
+        public String argument(String argumentName) {
+            JsonNode value = arguments.get(argumentName);
+            return value == null || value.isNull() ? null : value.isValueNode() ? value.asText() : value.toString();
+        }
+
+        // The single argument of a one-parameter tool, whatever it is called
+        public String firstArgument() {
+            Iterator<String> names = arguments.fieldNames();
+            return names.hasNext() ? argument(names.next()) : null;
+        }
+
+        // The prompt format, which is also how calls are written back into the conversation
+        public String toJson() {
+            ObjectNode json = OBJECT_MAPPER.createObjectNode();
+            json.put("tool", name);
+            json.setAll(arguments);
+            return json.toString();
+        }
+    }
+
+    /**
+     * @return every tool call in the text, in order
+     */
+    public static List<ToolCall> extract(String text) {
+        Session session = new Session();
+        session.append(text);
+        session.finish();
+        return session.toolCalls();
+    }
+
+    /**
+     * Reads {@code choices[0].message.tool_calls} (or a streamed delta's, once complete) from an
+     * OpenAI-compatible response, where {@code function.arguments} is itself a JSON string.
+     */
+    public static List<ToolCall> fromNativeToolCalls(JsonNode toolCalls) {
+        List<ToolCall> calls = new ArrayList<>();
+        for (JsonNode toolCall : toolCalls) {
+            JsonNode function = toolCall.path("function");
+            String name = function.path("name").asText("");
+            if (name.isEmpty()) {
+                continue;
+            }
+            calls.add(new ToolCall(name, arguments(function.get("arguments"))));
+        }
+        return calls;
+    }
+
+    // A parsed JSON object as a tool call, or null if it is some other object
+    static ToolCall toToolCall(JsonNode object) {
+        if (!object.isObject()) {
+            return null;
+        }
+        JsonNode tool = object.get("tool");
+        if (tool != null && tool.isTextual()) {
+            ObjectNode arguments = OBJECT_MAPPER.createObjectNode();
+            object.properties().forEach(field -> {
+                if (!field.getKey().equals("tool")) {
+                    arguments.set(field.getKey(), field.getValue());
+                }
+            });
+            // {"tool": "x", "arguments": {...}} nests the arguments one level down
+            if (arguments.size() == 1 && arguments.get("arguments") != null && arguments.get("arguments").isObject()) {
+                return new ToolCall(tool.asText(), (ObjectNode) arguments.get("arguments"));
+            }
+            return new ToolCall(tool.asText(), arguments);
+        }
+        JsonNode function = object.has("function") ? object.get("function") : object;
+        JsonNode name = function.get("name");
+        if (name != null && name.isTextual() && function.has("arguments")) {
+            return new ToolCall(name.asText(), arguments(function.get("arguments")));
+        }
+        return null;
+    }
+
+    private static ObjectNode arguments(JsonNode arguments) {
+        if (arguments != null && arguments.isObject()) {
+            return (ObjectNode) arguments;
+        }
+        if (arguments != null && arguments.isTextual() && !arguments.asText().isBlank()) {
+            try {
+                JsonNode parsed = OBJECT_MAPPER.readTree(arguments.asText());
+                if (parsed.isObject()) {
+                    return (ObjectNode) parsed;
+                }
+            } catch (IOException e) {
+                // fall through: unparseable arguments count as none
+            }
+        }
+        return OBJECT_MAPPER.createObjectNode();
+    }
+
+    /**
+     * Incremental extraction over a response that arrives in pieces. {@link #drainText()} returns the
+     * text that is certainly not part of a tool call, so a stream can forward prose while holding back
+     * only an object that is still being parsed. Not thread-safe.
+     */
+    public static final class Session {
+
+        private byte[] buffer = new byte[256];
+        private int length;
+        private int scanFrom;          // next byte to look for a '{' at
+        private int candidateStart = -1;
+        private int fedUpTo;
+        private JsonParser parser;
+        private TokenBuffer tokens;
+        private int emittedUpTo;       // text before this offset has been handed out or belongs to a tool call
+        private final StringBuilder text = new StringBuilder();
+        private final List<ToolCall> toolCalls = new ArrayList<>();
+
+        public void append(String chunk) {
+            byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+            if (length + bytes.length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes.length));
+            }
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+            scan();
+        }
+
+        // End of input: an object still open was not a tool call, but one may start inside it
+        public void finish() {
+            while (candidateStart >= 0) {
+                scanFrom = candidateStart + 1;
+                closeCandidate();
+                scan();
+            }
+        }
+
+        public List<ToolCall> toolCalls() {
+            return toolCalls;
+        }
+
+        public boolean hasToolCalls() {
+            return !toolCalls.isEmpty();
+        }
+
+        // Whether a '{' is open and could still turn out to be a tool call
+        public boolean pending() {
+            return candidateStart >= 0;
+        }
+
+        /**
+         * @return text outside tool calls that has not been returned yet
+         */
+        public String drainText() {
+            int safeEnd = candidateStart >= 0 ? candidateStart : length;
+            if (safeEnd > emittedUpTo) {
+                text.append(new String(buffer, emittedUpTo, safeEnd - emittedUpTo, StandardCharsets.UTF_8));
+                emittedUpTo = safeEnd;
+            }
+            String drained = text.toString();
+            text.setLength(0);
+            return drained;
+        }
+
+        private void scan() {
+            while (true) {
+                if (candidateStart < 0) {
+                    int brace = indexOfBrace(scanFrom);
+                    if (brace < 0) {
+                        scanFrom = length;
+                        return;
+                    }
+                    openCandidate(brace);
+                }
+                switch (advance()) {
+                    case NEED_MORE_INPUT -> {
+                        return;
+                    }
+                    case INVALID -> {
+                        scanFrom = candidateStart + 1;
+                        closeCandidate();
+                    }
+                    case COMPLETE -> completeCandidate();
+                }
+            }
+        }
+
+        private enum Progress { NEED_MORE_INPUT, INVALID, COMPLETE }
+
+        private Progress advance() {
+            try {
+                ByteArrayFeeder feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+                if (fedUpTo < length && feeder.needMoreInput()) {
+                    feeder.feedInput(buffer, fedUpTo, length);
+                    fedUpTo = length;
+                }
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE) {
+                    if (token == null) {
+                        return Progress.INVALID;
+                    }
+                    tokens.copyCurrentEvent(parser);
+                    if (token == JsonToken.END_OBJECT && parser.getParsingContext().inRoot()) {
+                        return Progress.COMPLETE;
+                    }
+                }
+                return Progress.NEED_MORE_INPUT;
+            } catch (IOException e) {
+                return Progress.INVALID;
+            }
+        }
+
+        private void openCandidate(int brace) {
+            try {
+                candidateStart = brace;
+                fedUpTo = brace;
+                parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+                tokens = new TokenBuffer(parser, null);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not create a JSON parser", e);
+            }
+        }
+
+        private void completeCandidate() {
+            int end = candidateStart + (int) parser.currentLocation().getByteOffset();
+            ToolCall call = null;
+            try (JsonParser replay = tokens.asParser(OBJECT_MAPPER)) {
+                call = toToolCall(OBJECT_MAPPER.readTree(replay));
+            } catch (IOException e) {
+                // not a usable object; leave it in the text
+            }
+            if (call != null) {
+                toolCalls.add(call);
+                if (candidateStart > emittedUpTo) {
+                    text.append(new String(buffer, emittedUpTo, candidateStart - emittedUpTo, StandardCharsets.UTF_8));
+                }
+                emittedUpTo = end;
+            }
+            scanFrom = end;
+            closeCandidate();
+        }
+
+        private void closeCandidate() {
+            candidateStart = -1;
+            if (parser != null) {
+                try {
+                    parser.close();
+                } catch (IOException e) {
+                    // nothing to release for an in-memory parser
+                }
+            }
+            parser = null;
+            tokens = null;
+        }
+
+        private int indexOfBrace(int from) {
+            for (int i = from; i < length; i++) {
+                if (buffer[i] == '{') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.think41.backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Caches the text returned by the chat tools, so repeated lookups skip the database.
+ * <p>
+ * Product search results change rarely and are kept for minutes. Order status is kept briefly and is
+ * also evicted by {@link OrderCacheEvictionListener} whenever an {@code Order} is written through JPA;
+ * bulk writes that bypass JPA (the CSV loaders) call {@link #invalidateAll()}.
+ */
+@Component
+public class ToolResultCache {
+
+    private final Cache<String, String> productSearches;
+    private final Cache<Long, String> orderStatuses;
+
+    public ToolResultCache(MeterRegistry meterRegistry,
+                           @Value("${chat.tool-cache.search-products.ttl:5m}") Duration searchTtl,
+                           @Value("${chat.tool-cache.search-products.max-entries:5000}") long searchMaxEntries,
+                           @Value("${chat.tool-cache.check-order-status.ttl:30s}") Duration orderTtl,
+                           @Value("${chat.tool-cache.check-order-status.max-entries:20000}") long orderMaxEntries) {
+        this.productSearches = Caffeine.newBuilder()
+                .maximumSize(searchMaxEntries)
+                .expireAfterWrite(searchTtl)
+                .recordStats()
+                .build();
+        this.orderStatuses = Caffeine.newBuilder()
+                .maximumSize(orderMaxEntries)
+                .expireAfterWrite(orderTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, productSearches, "tool.search_products");
+        CaffeineCacheMetrics.monitor(meterRegistry, orderStatuses, "tool.check_order_status");
+    }
+
+    // Queries differing only in case or spacing share an entry; the search itself is case-insensitive
+    public String searchProducts(String query, Function<String, String> search) {
+        String key = query.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return productSearches.get(key, k -> search.apply(query));
+    }
+
+    public String orderStatus(Long orderId, Function<Long, String> lookup) {
+        return orderStatuses.get(orderId, lookup);
+    }
+
+    public void evictOrder(Long orderId) {
+        orderStatuses.invalidate(orderId);
+    }
+
+    public void invalidateOrders() {
+        orderStatuses.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        productSearches.invalidateAll();
+        orderStatuses.invalidateAll();
+    }
+}
@@ -2,10 +2,17 @@ package com.think41.backend;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 
-@SpringBootTest
+@SpringBootTest(properties = {"csv.loader.enabled=false", "groq.api.key=test"})
 class BackendApplicationTests {
 
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		TestDatabase.register(registry);
+	}
+
 	@Test
 	void contextLoads() {
 	}
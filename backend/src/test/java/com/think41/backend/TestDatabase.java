@@ -0,0 +1,47 @@
+package com.think41.backend;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Embedded PostgreSQL for {@code @SpringBootTest}s, so they run against the schema this app creates
+ * instead of whatever database application.properties points at. Started once per JVM and stopped
+ * when it exits.
+ */
+public final class TestDatabase {
+
+	private static EmbeddedPostgres postgres;
+
+	private TestDatabase() {
+	}
+
+	/**
+	 * Points the datasource at the embedded database; call it from a {@code @DynamicPropertySource} method.
+	 */
+	public static void register(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> postgres().getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "postgres");
+	}
+
+	private static synchronized EmbeddedPostgres postgres() {
+		if (postgres == null) {
+			try {
+				postgres = EmbeddedPostgres.start();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					postgres.close();
+				} catch (IOException e) {
+					// exiting anyway
+				}
+			}));
+		}
+		return postgres;
+	}
+}
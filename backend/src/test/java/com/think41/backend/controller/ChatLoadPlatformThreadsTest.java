@@ -0,0 +1,8 @@
+package com.think41.backend.controller;
+
+import org.springframework.test.context.TestPropertySource;
+
+// The same scenarios with Tomcat on its platform thread pool, to compare against virtual threads
+@TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+class ChatLoadPlatformThreadsTest extends ChatLoadTest {
+}
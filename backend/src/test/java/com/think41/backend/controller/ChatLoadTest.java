@@ -0,0 +1,332 @@
+package com.think41.backend.controller;
+
+import com.think41.backend.DTO.ChatStreamEvent;
+import com.think41.backend.TestDatabase;
+import com.think41.backend.services.InMemoryProductSearch;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Open-loop load test of the real {@link ChatController}, against embedded PostgreSQL and
+ * {@link LlmStubServer} in place of Groq. Excluded from the normal build; run it with
+ * {@code mvn -P load-test test} (rate, length and warm-up via
+ * {@code -Dload.rps=50 -Dload.seconds=60 -Dload.warm-up-seconds=10}).
+ * <p>
+ * Requests arrive as a Poisson process at the offered rate whether or not earlier ones have finished,
+ * and latency is measured from each request's scheduled start, so a stalled server shows up as
+ * latency instead of silently lowering the load. Each scenario prints p50/p95/p99 latency,
+ * throughput, status counts and how saturated the Hikari pool got.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"csv.loader.enabled=false",
+		"groq.api.key=load-test",
+		"groq.cache.enabled=false" // every turn should reach the stub
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ChatLoadTest {
+
+	private static final double RPS = Double.parseDouble(System.getProperty("load.rps", "20"));
+	private static final int SECONDS = Integer.getInteger("load.seconds", 20);
+	private static final int WARM_UP_SECONDS = Integer.getInteger("load.warm-up-seconds", 10);
+	private static final int USERS = 1000;
+	private static final int PRODUCTS = 500;
+	private static final int ORDERS = 2000;
+	private static final double MIN_OK_FRACTION = 0.95;
+
+	private static LlmStubServer llm;
+
+	@LocalServerPort
+	private int port;
+
+	@Value("${spring.threads.virtual.enabled:false}")
+	private boolean virtualThreads;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private InMemoryProductSearch productSearch;
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.executor(Executors.newVirtualThreadPerTaskExecutor())
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+
+	@DynamicPropertySource
+	static void infrastructure(DynamicPropertyRegistry registry) {
+		TestDatabase.register(registry);
+		registry.add("groq.api.url", () -> llm().url());
+	}
+
+	// Shared by every load test class in the JVM, like the database; stops when it exits
+	private static synchronized LlmStubServer llm() {
+		if (llm == null) {
+			try {
+				llm = new LlmStubServer();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			Runtime.getRuntime().addShutdownHook(new Thread(llm::close));
+		}
+		return llm;
+	}
+
+	@BeforeAll
+	void seed() {
+		LocalDate today = LocalDate.now();
+		jdbcTemplate.batchUpdate("INSERT INTO users (id, first_name, last_name, email, created_at) VALUES (?, ?, ?, ?, ?) "
+				+ "ON CONFLICT (id) DO NOTHING", rows(USERS, id -> new Object[]{
+				id, "Load", "User " + id, "user" + id + "@example.com", Date.valueOf(today)}));
+		String[] kinds = {"Jacket", "Jeans", "Sweater", "T-Shirt", "Hoodie", "Shorts", "Socks", "Dress"};
+		String[] brands = {"Levi's", "Hanes", "Columbia", "Carhartt", "Patagonia"};
+		jdbcTemplate.batchUpdate("INSERT INTO products (id, name, brand, category, department, retail_price, cost, sku) "
+				+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING", rows(PRODUCTS, id -> new Object[]{
+				id, brands[id % brands.length] + " Classic " + kinds[id % kinds.length] + " " + id,
+				brands[id % brands.length], kinds[id % kinds.length] + "s", id % 2 == 0 ? "Men" : "Women",
+				19.99 + id % 80, 9.5 + id % 40, "SKU" + id}));
+		jdbcTemplate.batchUpdate("INSERT INTO orders (order_id, user_id, status, num_of_item, created_at) "
+				+ "VALUES (?, ?, ?, ?, ?) ON CONFLICT (order_id) DO NOTHING", rows(ORDERS, id -> new Object[]{
+				id, 1 + id % USERS, id % 3 == 0 ? "Shipped" : "Processing", 1 + id % 4, Date.valueOf(today.minusDays(id % 30))}));
+		productSearch.buildOnStartup(); // the index was built before these rows existed
+
+		// A cold JVM is slow enough for admission control to shed; measure the warmed-up server instead
+		resetStub();
+		run("warm-up (not asserted)", RPS, WARM_UP_SECONDS,
+				i -> chat(i % 3 == 0 ? "/api/chat/stream" : "/api/chat", i, toolMessage(i)));
+	}
+
+	@BeforeEach
+	void resetStub() {
+		llm().latency(300, 1200);
+		llm().rateLimitFraction(0);
+	}
+
+	@Test
+	void directAnswers() {
+		Report report = run("direct answers", RPS, i -> chat("/api/chat", i, "Hi there, can you help me choose a gift for my brother?"));
+		assertHealthy(report);
+	}
+
+	@Test
+	void toolCalls() {
+		Report report = run("tool calls (two LLM rounds + DB)", RPS, i -> chat("/api/chat", i, toolMessage(i)));
+		assertHealthy(report);
+	}
+
+	@Test
+	void streamedToolCalls() {
+		Report report = run("streamed tool calls", RPS, i -> chat("/api/chat/stream", i, toolMessage(i)));
+		assertHealthy(report);
+	}
+
+	@Test
+	void overloadedUpstream() {
+		// Slower stub that also rate-limits, at five times the offered rate: admission control should shed
+		// with 429s (or 503s once Groq retries are exhausted) rather than fail or time out
+		llm().latency(800, 4000);
+		llm().rateLimitFraction(0.1);
+		Report report = run("overloaded upstream", RPS * 5, i -> chat("/api/chat", i, toolMessage(i)));
+		assertThat(report.failed()).isZero();
+		assertThat(report.ok()).isPositive();
+	}
+
+	// Nothing may fail; admission control may still shed a little while its limit adapts
+	private static void assertHealthy(Report report) {
+		assertThat(report.failed()).isZero();
+		assertThat(report.ok()).isGreaterThanOrEqualTo((int) Math.ceil(report.sent() * MIN_OK_FRACTION));
+	}
+
+	private static String toolMessage(int i) {
+		return i % 2 == 0
+				? "Can you check on my order " + (1 + i % ORDERS) + "? It hasn't arrived yet and I'm getting worried."
+				: "I'm trying to find a warm jacket for winter hiking trips, any suggestions?";
+	}
+
+	private HttpRequest chat(String path, int i, String message) {
+		String body = "{\"userId\": " + (1 + i % USERS) + ", \"message\": \"" + message + "\"}";
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("Content-Type", "application/json")
+				.timeout(Duration.ofSeconds(120))
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+	}
+
+	private Report run(String scenario, double rps, IntFunction<HttpRequest> requests) {
+		return run(scenario, rps, SECONDS, requests);
+	}
+
+	private Report run(String scenario, double rps, int seconds, IntFunction<HttpRequest> requests) {
+		HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+		PoolSampler sampler = new PoolSampler(pool);
+		ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+		AtomicInteger ok = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		AtomicInteger failed = new AtomicInteger();
+		Map<String, Integer> failures = new ConcurrentHashMap<>(); // status code or exception -> count
+		long llmRequestsBefore = llm().requests();
+		long llmRateLimitedBefore = llm().rateLimited();
+
+		ScheduledExecutorService sampling = Executors.newSingleThreadScheduledExecutor();
+		sampling.scheduleAtFixedRate(sampler::sample, 0, 20, TimeUnit.MILLISECONDS);
+		long startNanos = System.nanoTime();
+		long endNanos = startNanos + TimeUnit.SECONDS.toNanos(seconds);
+		int sent = 0;
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			long scheduledNanos = startNanos;
+			while (true) {
+				// Poisson arrivals: exponentially distributed gaps with mean 1 / rps
+				scheduledNanos += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) / rps * 1e9);
+				if (scheduledNanos >= endNanos) {
+					break;
+				}
+				while (System.nanoTime() < scheduledNanos) {
+					LockSupport.parkNanos(scheduledNanos - System.nanoTime());
+				}
+				long intendedStart = scheduledNanos;
+				HttpRequest request = requests.apply(sent++);
+				clients.submit(() -> {
+					try {
+						HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+						latencies.add(System.nanoTime() - intendedStart);
+						if (response.statusCode() == 200 && completed(request, response)) {
+							ok.incrementAndGet();
+						} else if (response.statusCode() == 429 || response.statusCode() == 503) {
+							rejected.incrementAndGet();
+						} else {
+							failed.incrementAndGet();
+							failures.merge(response.statusCode() + " " + firstLine(response.body()), 1, Integer::sum);
+						}
+					} catch (IOException | InterruptedException e) {
+						failed.incrementAndGet();
+						failures.merge(e.toString(), 1, Integer::sum);
+					}
+				});
+			}
+		} // waits for every request to finish
+		double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+		sampling.shutdownNow();
+
+		long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+		Report report = new Report(sent, ok.get(), rejected.get(), failed.get());
+		System.out.printf("%n=== %s: %.1f req/s offered for %d s, %s threads ===%n",
+				scenario, rps, seconds, virtualThreads ? "virtual" : "platform");
+		System.out.printf("requests   %d sent, %d ok, %d rejected (429/503), %d failed; %.1f ok/s%n",
+				sent, ok.get(), rejected.get(), failed.get(), ok.get() / elapsedSeconds);
+		failures.forEach((reason, count) -> System.out.printf("failure    %d x %s%n", count, reason));
+		System.out.printf("latency    p50 %d ms, p95 %d ms, p99 %d ms, max %d ms%n",
+				percentileMillis(sorted, 50), percentileMillis(sorted, 95), percentileMillis(sorted, 99),
+				percentileMillis(sorted, 100));
+		System.out.printf("db pool    max %d/%d active (mean %.1f), max %d waiting, saturated in %.1f%% of samples%n",
+				sampler.maxActive, pool.getTotalConnections(), sampler.meanActive(), sampler.maxWaiting,
+				sampler.saturatedPercent());
+		System.out.printf("llm stub   %d requests, %d answered 429%n",
+				llm().requests() - llmRequestsBefore, llm().rateLimited() - llmRateLimitedBefore);
+		return report;
+	}
+
+	// A stream is answered with 200 before it is generated, so it only succeeded if it ended with a "done" event
+	private static boolean completed(HttpRequest request, HttpResponse<String> response) {
+		return !request.uri().getPath().endsWith("/stream") || response.body().contains("event:" + ChatStreamEvent.DONE);
+	}
+
+	private static String firstLine(String body) {
+		String line = body.lines().findFirst().orElse("");
+		return line.length() > 200 ? line.substring(0, 200) : line;
+	}
+
+	private static long percentileMillis(long[] sorted, int percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(sorted.length * percentile / 100.0) - 1;
+		return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]);
+	}
+
+	private static List<Object[]> rows(int count, IntFunction<Object[]> row) {
+		List<Object[]> rows = new ArrayList<>(count);
+		for (int id = 1; id <= count; id++) {
+			rows.add(row.apply(id));
+		}
+		return rows;
+	}
+
+	private record Report(int sent, int ok, int rejected, int failed) {
+	}
+
+	// Hikari's view of the pool, sampled every 20 ms while a scenario runs
+	private static final class PoolSampler {
+		private final HikariPoolMXBean pool;
+		private int samples;
+		private long activeSum;
+		private int maxActive;
+		private int maxWaiting;
+		private int saturatedSamples;
+
+		PoolSampler(HikariPoolMXBean pool) {
+			this.pool = pool;
+		}
+
+		synchronized void sample() {
+			int active = pool.getActiveConnections();
+			int waiting = pool.getThreadsAwaitingConnection();
+			samples++;
+			activeSum += active;
+			maxActive = Math.max(maxActive, active);
+			maxWaiting = Math.max(maxWaiting, waiting);
+			if (waiting > 0) {
+				saturatedSamples++;
+			}
+		}
+
+		synchronized double meanActive() {
+			return samples == 0 ? 0 : (double) activeSum / samples;
+		}
+
+		synchronized double saturatedPercent() {
+			return samples == 0 ? 0 : 100.0 * saturatedSamples / samples;
+		}
+	}
+}
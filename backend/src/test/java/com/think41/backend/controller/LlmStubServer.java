@@ -0,0 +1,144 @@
+package com.think41.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for Groq's OpenAI-compatible chat completions endpoint, for load tests.
+ * <p>
+ * Latency is log-normal with a configurable median and p99. Messages mentioning an order or asking to
+ * find something get a canned tool call first and an answer once the tool output comes back; anything
+ * else is answered directly. A fraction of requests can be rejected with 429 and {@code Retry-After}.
+ * Both the plain and the streaming ({@code "stream": true}) response formats are served.
+ */
+class LlmStubServer implements AutoCloseable {
+
+	private static final double Z_99 = 2.326; // standard normal quantile of p99
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+	private final HttpServer server;
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong rateLimited = new AtomicLong();
+
+	private volatile double medianMillis = 300;
+	private volatile double sigma = Math.log(4) / Z_99; // p99 = 4 x median
+	private volatile double rateLimitFraction;
+
+	LlmStubServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+		server.setExecutor(handlers);
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	String url() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/openai/v1/chat/completions";
+	}
+
+	void latency(double medianMillis, double p99Millis) {
+		this.medianMillis = medianMillis;
+		this.sigma = Math.log(Math.max(p99Millis, medianMillis) / medianMillis) / Z_99;
+	}
+
+	void rateLimitFraction(double fraction) {
+		this.rateLimitFraction = fraction;
+	}
+
+	long requests() {
+		return requests.get();
+	}
+
+	long rateLimited() {
+		return rateLimited.get();
+	}
+
+	private void handle(HttpExchange exchange) {
+		try {
+			requests.incrementAndGet();
+			JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			if (random.nextDouble() < rateLimitFraction) {
+				rateLimited.incrementAndGet();
+				exchange.getResponseHeaders().add("Retry-After", "1");
+				exchange.sendResponseHeaders(429, -1);
+				return;
+			}
+			Thread.sleep((long) (medianMillis * Math.exp(sigma * random.nextGaussian())));
+
+			String content = reply(request.path("messages"));
+			if (request.path("stream").asBoolean()) {
+				stream(exchange, content);
+			} else {
+				ObjectNode response = objectMapper.createObjectNode();
+				response.putArray("choices").addObject().putObject("message")
+						.put("role", "assistant")
+						.put("content", content);
+				send(exchange, 200, "application/json", response.toString());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// client went away
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private String reply(JsonNode messages) {
+		String last = messages.isEmpty() ? "" : messages.get(messages.size() - 1).path("content").asText();
+		if (last.startsWith("Tool output")) {
+			return "Thanks for waiting! Based on what I found, everything looks on track. Anything else I can help with?";
+		}
+		String text = last.toLowerCase(Locale.ROOT);
+		if (text.contains("order")) {
+			String digits = text.replaceAll("\\D+", " ").strip();
+			String orderId = digits.isEmpty() ? "1" : digits.split(" ")[0];
+			return "{\"tool\": \"check_order_status\", \"order_id\": " + orderId + "}";
+		}
+		if (text.contains("find") || text.contains("looking for")) {
+			return "Let me look.\n{\"tool\": \"search_products\", \"query\": \"jacket\"}";
+		}
+		return "Happy to help! Could you tell me a bit more about what you need?";
+	}
+
+	private void stream(HttpExchange exchange, String content) throws IOException, InterruptedException {
+		exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+		exchange.sendResponseHeaders(200, 0);
+		OutputStream body = exchange.getResponseBody();
+		for (String piece : content.split("(?<= )")) {
+			ObjectNode chunk = objectMapper.createObjectNode();
+			chunk.putArray("choices").addObject().putObject("delta").put("content", piece);
+			body.write(("data: " + chunk + "\n\n").getBytes(StandardCharsets.UTF_8));
+			body.flush();
+			Thread.sleep(5); // token pacing
+		}
+		body.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, bytes.length);
+		exchange.getResponseBody().write(bytes);
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		handlers.shutdownNow();
+	}
+}
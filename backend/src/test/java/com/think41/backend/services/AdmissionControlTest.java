@@ -0,0 +1,92 @@
+package com.think41.backend.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControlTest {
+
+	// Never called: AdmissionControl only registers for its attempt notifications
+	private final GroqTransport transport = new GroqTransport("http://127.0.0.1:9", "test-key",
+			new GroqTransportProperties(), WebClient.builder(), new SimpleMeterRegistry());
+
+	@AfterEach
+	void tearDown() {
+		transport.shutdown();
+	}
+
+	@Test
+	void limitsEachUserToTheirBurstThenTheirRate() {
+		AdmissionControl admission = admission(1, 2, 20, 10, Duration.ofSeconds(1));
+
+		admission.acquire(1L).close();
+		admission.acquire(1L).close();
+
+		assertThatThrownBy(() -> admission.acquire(1L))
+				.isInstanceOfSatisfying(AdmissionRejectedException.class,
+						e -> assertThat(e.getRetryAfter()).isGreaterThan(Duration.ofSeconds(50)));
+		admission.acquire(2L).close(); // other users are unaffected
+	}
+
+	@Test
+	void queuesOverTheLimitAndShedsWhenTheQueueIsFull() throws Exception {
+		AdmissionControl admission = admission(600, 100, 2, 1, Duration.ofSeconds(2));
+		AdmissionControl.Permit first = admission.acquire(1L);
+		AdmissionControl.Permit second = admission.acquire(2L);
+
+		CompletableFuture<AdmissionControl.Permit> queued = CompletableFuture.supplyAsync(() -> admission.acquire(3L));
+		Thread.sleep(100);
+		assertThat(queued).isNotDone();
+		assertThatThrownBy(() -> admission.acquire(4L)).isInstanceOf(AdmissionRejectedException.class);
+
+		first.close();
+		queued.get(1, TimeUnit.SECONDS).close();
+		second.close();
+	}
+
+	@Test
+	void rejectsAWaiterWhoseDeadlinePasses() {
+		AdmissionControl admission = admission(600, 100, 2, 10, Duration.ofMillis(200));
+		admission.acquire(1L);
+		admission.acquire(2L);
+
+		long start = System.nanoTime();
+		assertThatThrownBy(() -> admission.acquire(3L)).isInstanceOf(AdmissionRejectedException.class);
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isBetween(Duration.ofMillis(150), Duration.ofSeconds(1));
+	}
+
+	@Test
+	void adaptsTheLimitToGroqOverloadAndLatency() {
+		AdmissionControl admission = admission(600, 100, 20, 10, Duration.ofSeconds(1));
+
+		admission.onGroqAttempt(0, true);
+		admission.onGroqAttempt(0, true); // the same overload episode only counts once
+		assertThat(admission.limit()).isEqualTo(14);
+
+		// Fast responses grow the limit again, but only while it is actually in use
+		for (int i = 0; i < 100; i++) {
+			admission.onGroqAttempt(TimeUnit.MILLISECONDS.toNanos(300), false);
+		}
+		assertThat(admission.limit()).isEqualTo(14);
+		for (int i = 0; i < 14; i++) {
+			admission.acquire((long) i);
+		}
+		for (int i = 0; i < 100; i++) {
+			admission.onGroqAttempt(TimeUnit.MILLISECONDS.toNanos(300), false);
+		}
+		assertThat(admission.limit()).isGreaterThan(14);
+	}
+
+	private AdmissionControl admission(double userRatePerMinute, int userBurst, int limit, int maxQueue, Duration maxWait) {
+		return new AdmissionControl(true, userRatePerMinute, userBurst, limit, 2, 200, 0.7,
+				Duration.ofSeconds(8), Duration.ofSeconds(10), maxQueue, maxWait, transport, new SimpleMeterRegistry());
+	}
+}
@@ -0,0 +1,196 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ProductSearchResult;
+import com.think41.backend.entity.ChatMessage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded data shaped like the e-commerce export and real chat traffic, shared by the JMH benchmarks.
+ * The same seed always produces the same rows, so results are comparable between runs.
+ */
+final class BenchmarkFixtures {
+
+	private static final String[] CATEGORIES = {"Jeans", "Tops & Tees", "Outerwear & Coats", "Sweaters", "Active", "Intimates", "Accessories"};
+	private static final String[] BRANDS = {"Levi's", "Calvin Klein", "Carhartt", "Columbia", "Hanes", "Tommy Hilfiger", "Under Armour", "The North Face"};
+	private static final String[] PRODUCT_NAMES = {
+			"Men's 505 Regular Fit Jean",
+			"Women's Crewneck Cotton Sweater",
+			"Men's Loose Fit Washed Duck Sherpa Lined Jacket",
+			"\"Relaxed Fit, Heavyweight\" Pocket T-Shirt",
+			"Women's Arcadia II Waterproof Rain Jacket",
+			"Performance Compression Leggings, 7/8 Length",
+			"Classic Leather Belt with Brushed Buckle",
+	};
+	private static final String[] DEPARTMENTS = {"Men", "Women"};
+	private static final String[] ORDER_STATUSES = {"Complete", "Shipped", "Processing", "Cancelled", "Returned"};
+	private static final String[] FIRST_NAMES = {"Emily", "James", "Olivia", "Daniel", "Sofia", "Michael", "Aisha", "Lucas"};
+	private static final String[] LAST_NAMES = {"Johnson", "Garcia", "Smith", "Nguyen", "Brown", "Martinez", "Khan", "Miller"};
+	private static final String[] CITIES = {"Austin", "Seattle", "Chicago", "Brooklyn", "Sao Paulo", "Shanghai", "Leeds"};
+	private static final String[] COUNTRIES = {"United States", "Brasil", "China", "United Kingdom"};
+	private static final String[] TRAFFIC_SOURCES = {"Search", "Organic", "Facebook", "Email", "Display"};
+
+	private static final String[] USER_MESSAGES = {
+			"Hi! I'm looking for a warm jacket for hiking this winter, something waterproof.",
+			"What's the status of order 54321? It was supposed to arrive last week.",
+			"Do you have Levi's 505 jeans in a 32x32?",
+			"Can you compare the Carhartt sherpa jacket with the Columbia one?",
+			"Thanks. Also, can I still return the sweater from order 12877?",
+			"ok",
+	};
+	private static final String[] AI_MESSAGES = {
+			"I'd be happy to help! Here are a few waterproof options:\n- Women's Arcadia II Waterproof Rain Jacket "
+					+ "(Brand: Columbia, Price: $64.99, Category: Outerwear & Coats)\n- Men's Loose Fit Washed Duck Sherpa "
+					+ "Lined Jacket (Brand: Carhartt, Price: $129.99, Category: Outerwear & Coats)\nWould you like more details on either?",
+			"Order 54321 is currently 'Shipped' and was created on 2024-03-02. It contains 2 items. "
+					+ "Shipping usually takes 3-5 business days, so it should arrive soon.",
+			"{\"tool\": \"search_products\", \"query\": \"Levi's 505\"}",
+			"The Carhartt jacket is heavier and sherpa-lined, better for dry cold; the Columbia is lighter and fully "
+					+ "waterproof, which suits rainy hikes. Both are in stock.",
+			"Yes, items can be returned within 30 days of delivery. Order 12877 was delivered 12 days ago, so you're still eligible.",
+	};
+
+	private BenchmarkFixtures() {
+	}
+
+	/**
+	 * @return the seed file for {@code table} with a header line and {@code rows} data rows
+	 */
+	static String csv(CsvTable table, int rows) {
+		Random random = new Random(41);
+		StringBuilder csv = new StringBuilder(rows * 160);
+		csv.append(header(table)).append('\n');
+		for (int id = 1; id <= rows; id++) {
+			csv.append(row(table, id, random)).append('\n');
+		}
+		return csv.toString();
+	}
+
+	private static String header(CsvTable table) {
+		return switch (table) {
+			case DISTRIBUTION_CENTERS -> "id,name,latitude,longitude";
+			case PRODUCTS -> "id,cost,category,name,brand,retail_price,department,sku,distribution_center_id";
+			case USERS -> "id,first_name,last_name,email,age,gender,state,street_address,postal_code,city,country,"
+					+ "latitude,longitude,traffic_source,created_at";
+			case ORDERS -> "order_id,user_id,status,gender,created_at,returned_at,shipped_at,delivered_at,num_of_item";
+			case INVENTORY_ITEMS -> "id,product_id,created_at,sold_at,cost,product_category,product_name,product_brand,"
+					+ "product_retail_price,product_department,product_sku,product_distribution_center_id";
+			case ORDER_ITEMS -> "id,order_id,user_id,product_id,inventory_item_id,status,created_at,shipped_at,delivered_at,returned_at";
+		};
+	}
+
+	private static String row(CsvTable table, int id, Random random) {
+		String status = pick(ORDER_STATUSES, random);
+		String created = timestamp(random, 0);
+		return switch (table) {
+			case DISTRIBUTION_CENTERS -> id + ",Distribution Center " + id + "," + coordinate(random, 90) + "," + coordinate(random, 180);
+			case PRODUCTS -> String.join(",", String.valueOf(id), price(random), pick(CATEGORIES, random),
+					quoted(pick(PRODUCT_NAMES, random)), pick(BRANDS, random), price(random), pick(DEPARTMENTS, random),
+					sku(random), String.valueOf(1 + random.nextInt(10)));
+			case USERS -> {
+				String first = pick(FIRST_NAMES, random);
+				String last = pick(LAST_NAMES, random);
+				yield String.join(",", String.valueOf(id), first, last,
+						(first + "." + last + id + "@example.com").toLowerCase(Locale.ROOT), String.valueOf(12 + random.nextInt(59)),
+						random.nextBoolean() ? "F" : "M", "Texas", (100 + random.nextInt(9900)) + " Oak Street",
+						String.valueOf(10000 + random.nextInt(89999)), pick(CITIES, random), pick(COUNTRIES, random),
+						coordinate(random, 90), coordinate(random, 180), pick(TRAFFIC_SOURCES, random), created);
+			}
+			case ORDERS -> String.join(",", String.valueOf(id), String.valueOf(1 + random.nextInt(100_000)), status,
+					random.nextBoolean() ? "F" : "M", created,
+					status.equals("Returned") ? timestamp(random, 9) : "",
+					status.equals("Processing") || status.equals("Cancelled") ? "" : timestamp(random, 1),
+					status.equals("Complete") || status.equals("Returned") ? timestamp(random, 4) : "",
+					String.valueOf(1 + random.nextInt(4)));
+			case INVENTORY_ITEMS -> String.join(",", String.valueOf(id), String.valueOf(1 + random.nextInt(29_000)), created,
+					random.nextInt(3) == 0 ? timestamp(random, 20) : "", price(random), pick(CATEGORIES, random),
+					quoted(pick(PRODUCT_NAMES, random)), pick(BRANDS, random), price(random), pick(DEPARTMENTS, random),
+					sku(random), String.valueOf(1 + random.nextInt(10)));
+			case ORDER_ITEMS -> String.join(",", String.valueOf(id), String.valueOf(1 + random.nextInt(125_000)),
+					String.valueOf(1 + random.nextInt(100_000)), String.valueOf(1 + random.nextInt(29_000)),
+					String.valueOf(1 + random.nextInt(490_000)), status, created,
+					status.equals("Processing") || status.equals("Cancelled") ? "" : timestamp(random, 1),
+					status.equals("Complete") || status.equals("Returned") ? timestamp(random, 4) : "",
+					status.equals("Returned") ? timestamp(random, 9) : "");
+		};
+	}
+
+	/**
+	 * @return a session's newest {@code size} messages, alternating user and assistant, oldest first
+	 */
+	static List<ChatMessage> chatHistory(int size) {
+		Random random = new Random(41);
+		LocalDateTime start = LocalDateTime.of(2024, 3, 2, 10, 15);
+		List<ChatMessage> history = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			boolean user = i % 2 == 0;
+			ChatMessage message = new ChatMessage();
+			message.setId((long) i + 1);
+			message.setSequenceNumber(i + 1);
+			message.setSenderType(user ? ChatMessage.SenderType.USER : ChatMessage.SenderType.AI);
+			message.setMessageContent(pick(user ? USER_MESSAGES : AI_MESSAGES, random));
+			message.setTimestamp(start.plusSeconds(20L * i));
+			history.add(message);
+		}
+		return history;
+	}
+
+	/**
+	 * @return the prompt a turn sends for a history of {@code size} messages, with the system prompt first
+	 */
+	static List<Map<String, String>> prompt(int size) {
+		List<Map<String, String>> prompt = new ArrayList<>(size + 1);
+		prompt.add(Map.of("role", "system", "content", ChatService.SYSTEM_PROMPT));
+		for (ChatMessage message : chatHistory(size)) {
+			prompt.add(Map.of("role", ConversationContextBuilder.roleOf(message.getSenderType()),
+					"content", message.getMessageContent()));
+		}
+		return prompt;
+	}
+
+	/**
+	 * @return {@code size} search hits as the search_products tool receives them
+	 */
+	static List<ProductSearchResult> productResults(int size) {
+		Random random = new Random(41);
+		List<ProductSearchResult> results = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			results.add(new ProductSearchResult((long) 1000 + i, pick(PRODUCT_NAMES, random), pick(BRANDS, random),
+					pick(CATEGORIES, random), pick(DEPARTMENTS, random), Double.parseDouble(price(random))));
+		}
+		return results;
+	}
+
+	private static String pick(String[] values, Random random) {
+		return values[random.nextInt(values.length)];
+	}
+
+	// Mixes the two shapes the export uses: whole seconds and microsecond precision
+	private static String timestamp(Random random, int daysAfter) {
+		int day = 1 + random.nextInt(28);
+		String time = String.format(Locale.ROOT, "2023-%02d-%02d %02d:%02d:%02d", 1 + random.nextInt(12), Math.min(28, day + daysAfter),
+				random.nextInt(24), random.nextInt(60), random.nextInt(60));
+		return random.nextBoolean() ? time + "+00:00" : time + String.format(Locale.ROOT, ".%06d+00:00", random.nextInt(1_000_000));
+	}
+
+	private static String price(Random random) {
+		return String.format(Locale.ROOT, "%.2f", 5 + random.nextDouble() * 195);
+	}
+
+	private static String coordinate(Random random, int range) {
+		return String.format(Locale.ROOT, "%.6f", (random.nextDouble() * 2 - 1) * range);
+	}
+
+	private static String sku(Random random) {
+		return String.format(Locale.ROOT, "%016X%016X", random.nextLong(), random.nextLong());
+	}
+
+	private static String quoted(String value) {
+		return value.contains(",") || value.contains("\"") ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+	}
+}
@@ -0,0 +1,95 @@
+package com.think41.backend.services;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.think41.backend.entity.ChatMessage;
+import com.think41.backend.services.ConversationHistoryCache.HistoryMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU work of one chat turn before the Groq call, per history length: copying the session's
+ * {@link ChatMessage}s and fitting them into the token budget, building the request body as an
+ * {@link ObjectNode} tree, and hashing it into the response cache key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatPromptBenchmark {
+
+	@Param({"2", "10", "30"})
+	public int historySize;
+
+	private final ConversationContextBuilder contextBuilder = new ConversationContextBuilder(3000, 30);
+	private GroqTransport transport;
+	private GroqApiClient groqApiClient;
+
+	private List<ChatMessage> history;
+	private List<Map<String, String>> prompt;
+	private ObjectNode requestBody;
+
+	@Setup
+	public void setUp() {
+		// Never called: request bodies are only built, not sent
+		transport = new GroqTransport("http://127.0.0.1:9", "benchmark-key", new GroqTransportProperties(),
+				WebClient.builder(), new SimpleMeterRegistry());
+		groqApiClient = new GroqApiClient("llama-3.1-8b-instant", 0.7, 500, false, Duration.ofMinutes(10), 10_000, 0.7,
+				transport, new SimpleMeterRegistry());
+		history = BenchmarkFixtures.chatHistory(historySize);
+		prompt = BenchmarkFixtures.prompt(historySize);
+		requestBody = groqApiClient.buildRequestBody(prompt, false);
+	}
+
+	@TearDown
+	public void tearDown() {
+		transport.shutdown();
+	}
+
+	@Benchmark
+	public ConversationContextBuilder.PromptContext assemblePrompt() {
+		List<HistoryMessage> recentMessages = new ArrayList<>(history.size());
+		for (ChatMessage message : history) {
+			recentMessages.add(HistoryMessage.of(message));
+		}
+		return contextBuilder.build(ChatService.SYSTEM_PROMPT, null, 0, recentMessages);
+	}
+
+	@Benchmark
+	public ObjectNode buildRequestBody() {
+		return groqApiClient.buildRequestBody(prompt, false);
+	}
+
+	@Benchmark
+	public String cacheKey() {
+		return GroqApiClient.cacheKey(requestBody);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ChatPromptBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
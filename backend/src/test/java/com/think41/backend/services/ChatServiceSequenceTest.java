@@ -0,0 +1,180 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ChatRequest;
+import com.think41.backend.DTO.ChatMessageView;
+import com.think41.backend.DTO.ChatResponse;
+import com.think41.backend.DTO.ChatStreamEvent;
+import com.think41.backend.DTO.ConversationHistoryPage;
+import com.think41.backend.Repo.ChatMessageRepository;
+import com.think41.backend.Repo.ConversationSessionRepository;
+import com.think41.backend.Repo.UserRepository;
+import com.think41.backend.TestDatabase;
+import com.think41.backend.entity.ChatMessage;
+import com.think41.backend.entity.ConversationSession;
+import com.think41.backend.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {"csv.loader.enabled=false", "groq.api.key=test"})
+class ChatServiceSequenceTest {
+
+	private static final long TEST_USER_ID = 990_000_001L;
+	private static final int PARALLEL_TURNS = 24;
+
+	@Autowired
+	private ChatService chatService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ConversationSessionRepository conversationSessionRepository;
+
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	@MockitoBean
+	private GroqApiClient groqApiClient;
+
+	private Long sessionId;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		TestDatabase.register(registry);
+	}
+
+	@BeforeEach
+	void setUp() {
+		User user = new User();
+		user.setId(TEST_USER_ID);
+		user.setFirstName("Sequence");
+		user.setLastName("Test");
+		userRepository.save(user);
+		when(groqApiClient.getChatCompletion(anyList())).thenReturn(Mono.just("Happy to help!"));
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (sessionId != null) {
+			conversationSessionRepository.deleteById(sessionId);
+		}
+		userRepository.deleteById(TEST_USER_ID);
+	}
+
+	@Test
+	void parallelTurnsOnOneSessionGetDistinctContiguousSequenceNumbers() throws Exception {
+		sessionId = chatService.handleChatMessage(new ChatRequest(TEST_USER_ID, "First message", null)).getConversationId();
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<ChatResponse>> turns = new ArrayList<>();
+			for (int i = 0; i < PARALLEL_TURNS; i++) {
+				String message = "Parallel message " + i;
+				turns.add(() -> chatService.handleChatMessage(new ChatRequest(TEST_USER_ID, message, sessionId)));
+			}
+			for (Future<ChatResponse> turn : executor.invokeAll(turns)) {
+				assertThat(turn.get().getConversationId()).isEqualTo(sessionId);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		ConversationSession session = conversationSessionRepository.findById(sessionId).orElseThrow();
+		List<Integer> sequenceNumbers = chatMessageRepository.findBySessionOrderBySequenceNumberAsc(session).stream()
+				.map(ChatMessage::getSequenceNumber)
+				.toList();
+		int expectedMessages = 2 * (PARALLEL_TURNS + 1); // one user and one AI message per turn
+		assertThat(sequenceNumbers).containsExactlyElementsOf(IntStream.rangeClosed(1, expectedMessages).boxed().toList());
+		assertThat(conversationSessionRepository.findLastSequenceNumber(sessionId)).isEqualTo(expectedMessages);
+	}
+
+	@Test
+	void pagesThroughHistoryWithKeysetCursors() {
+		sessionId = chatService.handleChatMessage(new ChatRequest(TEST_USER_ID, "Message 0", null)).getConversationId();
+		for (int i = 1; i < 3; i++) {
+			chatService.handleChatMessage(new ChatRequest(TEST_USER_ID, "Message " + i, sessionId));
+		}
+
+		ConversationHistoryPage newest = chatService.getConversationHistory(sessionId, null, null, 4);
+		assertThat(sequenceNumbers(newest)).containsExactly(3, 4, 5, 6);
+		assertThat(newest.getBefore()).isEqualTo(3);
+		assertThat(newest.getAfter()).isEqualTo(6);
+
+		ConversationHistoryPage older = chatService.getConversationHistory(sessionId, newest.getBefore(), null, 4);
+		assertThat(sequenceNumbers(older)).containsExactly(1, 2);
+		assertThat(older.getBefore()).isNull();
+
+		ConversationHistoryPage newer = chatService.getConversationHistory(sessionId, null, 2, 2);
+		assertThat(sequenceNumbers(newer)).containsExactly(3, 4);
+		assertThat(newer.getAfter()).isEqualTo(4);
+
+		ConversationHistoryPage rest = chatService.getConversationHistory(sessionId, null, newer.getAfter(), 4);
+		assertThat(sequenceNumbers(rest)).containsExactly(5, 6);
+		assertThat(rest.getAfter()).isNull(); // caught up
+		assertThat(chatService.listConversations(TEST_USER_ID, 0, 10).getSessions())
+				.extracting("id").containsExactly(sessionId);
+	}
+
+	@Test
+	void streamedTurnIsPersistedOnceWhenItCompletes() {
+		sessionId = chatService.handleChatMessage(new ChatRequest(TEST_USER_ID, "First message", null)).getConversationId();
+		when(groqApiClient.streamChatCompletion(anyList())).thenReturn(Flux.just("Happy ", "to help!"));
+
+		List<ChatStreamEvent> events = chatService.streamChatMessage(new ChatRequest(TEST_USER_ID, "Streamed message", sessionId))
+				.collectList().block(Duration.ofSeconds(10));
+
+		assertThat(events).extracting(ChatStreamEvent::getType)
+				.containsExactly(ChatStreamEvent.TOKEN, ChatStreamEvent.TOKEN, ChatStreamEvent.DONE);
+		assertThat(events.get(2).getResponse().getResponse()).isEqualTo("Happy to help!");
+		assertThat(aiMessages()).containsExactly("Happy to help!", "Happy to help!");
+	}
+
+	@Test
+	void cancelledStreamPersistsThePartialAnswerOnce() throws Exception {
+		sessionId = chatService.handleChatMessage(new ChatRequest(TEST_USER_ID, "First message", null)).getConversationId();
+		when(groqApiClient.streamChatCompletion(anyList())).thenReturn(Flux.just("Hello").concatWith(Flux.never()));
+
+		// The client reads the first token and disconnects
+		ChatStreamEvent first = chatService.streamChatMessage(new ChatRequest(TEST_USER_ID, "Streamed message", sessionId))
+				.blockFirst(Duration.ofSeconds(10));
+
+		assertThat(first.getContent()).isEqualTo("Hello");
+		await().atMost(Duration.ofSeconds(10)).until(() -> aiMessages().size() == 2);
+		Thread.sleep(200);
+		assertThat(aiMessages()).containsExactly("Happy to help!", "Hello");
+	}
+
+	private List<String> aiMessages() {
+		ConversationSession session = conversationSessionRepository.findById(sessionId).orElseThrow();
+		return chatMessageRepository.findBySessionOrderBySequenceNumberAsc(session).stream()
+				.filter(message -> message.getSenderType() == ChatMessage.SenderType.AI)
+				.map(ChatMessage::getMessageContent)
+				.toList();
+	}
+
+	private static List<Integer> sequenceNumbers(ConversationHistoryPage page) {
+		return page.getMessages().stream().map(ChatMessageView::getSequenceNumber).toList();
+	}
+}
@@ -0,0 +1,118 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ProductSearchResult;
+import com.think41.backend.Repo.OrderRepository;
+import com.think41.backend.services.ToolCallExtractor.ToolCall;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChatToolServiceTest {
+
+	private final OrderRepository orderRepository = mock(OrderRepository.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ToolResultCache cache = new ToolResultCache(new SimpleMeterRegistry(),
+			Duration.ofMinutes(5), 100, Duration.ofSeconds(30), 100);
+	private final ChatToolService tools = new ChatToolService((query, limit) -> {
+		sleep(300);
+		return List.of(new ProductSearchResult(1L, "Denim Jacket", "Levi's", "Outerwear & Coats", "Women", 89.0));
+	}, orderRepository, cache, 4, Duration.ofSeconds(5), meterRegistry);
+
+	@AfterEach
+	void tearDown() {
+		tools.shutdown();
+	}
+
+	@Test
+	void parsesEveryToolCallInAResponse() {
+		String response = """
+				{"tool": "check_order_status", "order_id": 1}
+				{"tool": "check_order_status", "order_id": 2}
+				{"tool": "search_products", "query": "jackets"}
+				{"tool": "check_order_status", "order_id": 1}
+				""";
+
+		assertThat(tools.isToolCall(response)).isTrue();
+		assertThat(tools.parse(response)).containsExactly(
+				call("{\"tool\": \"check_order_status\", \"order_id\": 1}"),
+				call("{\"tool\": \"check_order_status\", \"order_id\": 2}"),
+				call("{\"tool\": \"search_products\", \"query\": \"jackets\"}"));
+		assertThat(tools.isToolCall("Pick a size like {\"size\": \"M\"} and I'll check")).isFalse();
+	}
+
+	@Test
+	void runsIndependentCallsConcurrently() {
+		when(orderRepository.findById(anyLong())).thenReturn(Optional.empty());
+		List<ToolCall> calls = List.of(
+				call("{\"tool\": \"search_products\", \"query\": \"jackets\"}"),
+				call("{\"tool\": \"search_products\", \"query\": \"coats\"}"),
+				call("{\"tool\": \"search_products\", \"query\": \"denim\"}"),
+				call("{\"tool\": \"check_order_status\", \"order_id\": \"7\"}"));
+
+		long start = System.nanoTime();
+		List<String> outputs = tools.executeAll(calls);
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertThat(elapsedMillis).isLessThan(800); // three 300 ms searches, not run one after another
+		assertThat(outputs).hasSize(4);
+		assertThat(outputs.get(0)).contains("Denim Jacket");
+		assertThat(outputs.get(3)).isEqualTo("Order with ID 7 not found.");
+		assertThat(meterRegistry.get("chat.tool.invocations").tags("tool", "search_products", "outcome", "success")
+				.counter().count()).isEqualTo(3);
+
+		List<Map<String, String>> followUp = ChatToolService.withToolResults(List.of(), "{...}", calls, outputs);
+		assertThat(followUp).hasSize(2);
+		assertThat(followUp.get(1).get("content")).contains("search_products{\"query\":\"coats\"}:",
+				"check_order_status{\"order_id\":\"7\"}:");
+	}
+
+	@Test
+	void interruptsToolsStillRunningAtTheTimeout() throws Exception {
+		CountDownLatch interrupted = new CountDownLatch(2);
+		ChatToolService slowTools = new ChatToolService((query, limit) -> {
+			try {
+				Thread.sleep(10_000);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+				Thread.currentThread().interrupt();
+			}
+			return List.of();
+		}, orderRepository, cache, 4, Duration.ofMillis(200), meterRegistry);
+		try {
+			List<String> outputs = slowTools.executeAll(List.of(
+					call("{\"tool\": \"search_products\", \"query\": \"parkas\"}"),
+					call("{\"tool\": \"search_products\", \"query\": \"boots\"}")));
+
+			assertThat(outputs).containsExactly("Tool 'search_products' timed out.", "Tool 'search_products' timed out.");
+			assertThat(interrupted.await(2, TimeUnit.SECONDS)).isTrue();
+			assertThat(meterRegistry.get("chat.tool.invocations").tags("tool", "search_products", "outcome", "timeout")
+					.counter().count()).isEqualTo(2);
+		} finally {
+			slowTools.shutdown();
+		}
+	}
+
+	private static ToolCall call(String json) {
+		return ToolCallExtractor.extract(json).get(0);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
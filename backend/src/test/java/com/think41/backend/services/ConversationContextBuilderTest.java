@@ -0,0 +1,53 @@
+package com.think41.backend.services;
+
+import com.think41.backend.entity.ChatMessage;
+import com.think41.backend.services.ConversationContextBuilder.PromptContext;
+import com.think41.backend.services.ConversationHistoryCache.HistoryMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversationContextBuilderTest {
+
+	// Room for the system prompt and three of the one-character messages below (5 estimated tokens each)
+	private final ConversationContextBuilder builder = new ConversationContextBuilder(22, 30);
+
+	@Test
+	void keepsMessagesTheSummaryDoesNotCoverEvenOverTheBudget() {
+		PromptContext context = builder.build("Be brief.", null, 0, messages(8));
+
+		assertThat(contents(context)).containsExactly("Be brief.", "1", "2", "3", "4", "5", "6", "7", "8");
+		assertThat(context.windowStartSequence()).isEqualTo(6); // 1-5 are due to be folded
+	}
+
+	@Test
+	void dropsOnlyMessagesAlreadyInTheSummary() {
+		PromptContext context = builder.build("Be brief.", "Asked about jeans.", 3, messages(8));
+
+		assertThat(contents(context)).containsExactly("Be brief.",
+				"Summary of the earlier conversation:\nAsked about jeans.", "4", "5", "6", "7", "8");
+	}
+
+	@Test
+	void staysWithinTheBudgetOnceTheSummaryHasCaughtUp() {
+		PromptContext context = builder.build("Be brief.", null, 5, messages(8));
+
+		assertThat(contents(context)).containsExactly("Be brief.", "6", "7", "8");
+		assertThat(context.windowStartSequence()).isEqualTo(6);
+	}
+
+	private static List<HistoryMessage> messages(int count) {
+		return IntStream.rangeClosed(1, count)
+				.mapToObj(n -> new HistoryMessage(n, n % 2 == 1 ? ChatMessage.SenderType.USER : ChatMessage.SenderType.AI,
+						String.valueOf(n)))
+				.toList();
+	}
+
+	private static List<String> contents(PromptContext context) {
+		return context.messages().stream().map(message -> message.get("content")).toList();
+	}
+}
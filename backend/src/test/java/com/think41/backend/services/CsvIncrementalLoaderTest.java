@@ -0,0 +1,102 @@
+package com.think41.backend.services;
+
+import com.think41.backend.Repo.CsvIngestCheckpointRepository;
+import com.think41.backend.TestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the incremental loader over a distribution_centers.csv that is appended to and rewritten between runs
+@SpringBootTest(properties = {"csv.loader.enabled=false", "groq.api.key=test", "csv.loader.chunk-size=2"})
+@ExtendWith(OutputCaptureExtension.class)
+class CsvIncrementalLoaderTest {
+
+	private static final String FILE = "distribution_centers.csv";
+	private static final String HEADER = "id,name,latitude,longitude\n";
+
+	@TempDir
+	static Path data;
+
+	@Autowired
+	private CsvIncrementalLoader loader;
+
+	@Autowired
+	private CsvIngestCheckpointRepository checkpointRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		TestDatabase.register(registry);
+		registry.add("csv.loader.data-location", () -> data.toUri().toString());
+	}
+
+	@AfterEach
+	void tearDown() {
+		checkpointRepository.deleteById(FILE);
+		jdbcTemplate.update("DELETE FROM distribution_centers WHERE id >= 990000201");
+	}
+
+	@Test
+	void readsOnlyTheTailOfAnAppendedFile(CapturedOutput output) throws IOException {
+		write(HEADER + row(1, "Memphis") + row(2, "Chicago") + row(3, "Houston"), 1);
+		loader.run();
+
+		Files.writeString(data.resolve(FILE), row(4, "Savannah"), StandardOpenOption.APPEND);
+		touch(2);
+		loader.run();
+
+		assertThat(output).contains("Resuming " + FILE + " after 3 records.");
+		assertThat(names()).containsExactly("Memphis", "Chicago", "Houston", "Savannah");
+	}
+
+	@Test
+	void rereadsALongerFileWhoseEarlierRowsChanged(CapturedOutput output) throws IOException {
+		write(HEADER + row(1, "Memphis") + row(2, "Chicago") + row(3, "Houston"), 1);
+		loader.run();
+
+		// A nightly export rewritten in full: an earlier row changed and the file grew
+		write(HEADER + row(1, "Memphis TN") + row(2, "Chicago") + row(3, "Houston") + row(4, "Savannah"), 2);
+		loader.run();
+
+		assertThat(output).contains("Re-reading " + FILE + " from the start").doesNotContain("Resuming " + FILE);
+		assertThat(names()).containsExactly("Memphis TN", "Chicago", "Houston", "Savannah");
+		assertThat(checkpointRepository.findById(FILE).orElseThrow().getRecordCount()).isEqualTo(4);
+	}
+
+	private static String row(int n, String name) {
+		return (990_000_200 + n) + "," + name + ",35.1," + (-90.0 + n) + "\n";
+	}
+
+	private static void write(String content, int version) throws IOException {
+		Files.writeString(data.resolve(FILE), content);
+		touch(version);
+	}
+
+	// Each version gets its own modification time, however fast the test runs
+	private static void touch(int version) throws IOException {
+		Files.setLastModifiedTime(data.resolve(FILE), FileTime.fromMillis(1_700_000_000_000L + version * 1000L));
+	}
+
+	private List<String> names() {
+		return jdbcTemplate.queryForList("SELECT name FROM distribution_centers WHERE id >= 990000201 ORDER BY id", String.class);
+	}
+}
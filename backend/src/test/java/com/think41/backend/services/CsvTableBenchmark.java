@@ -0,0 +1,78 @@
+package com.think41.backend.services;
+
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning seed CSV rows into bind values for the bulk loader: {@code map} is the per-record conversion
+ * alone (number and timestamp parsing), {@code parseAndMap} adds Commons CSV tokenizing, as a load does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvTableBenchmark {
+
+	private static final int ROWS = 1_000;
+
+	// CsvTable constant names; the enum itself is package-private, which the generated JMH code can't reference
+	@Param({"PRODUCTS", "USERS", "ORDERS", "INVENTORY_ITEMS", "ORDER_ITEMS"})
+	public String tableName;
+
+	private CsvTable table;
+	private String csv;
+	private List<CSVRecord> records;
+
+	@Setup
+	public void setUp() throws IOException {
+		table = CsvTable.valueOf(tableName);
+		csv = BenchmarkFixtures.csv(table, ROWS);
+		try (CSVParser parser = table.parse(new StringReader(csv))) {
+			records = parser.getRecords();
+		}
+	}
+
+	@Benchmark
+	public void map(Blackhole blackhole) {
+		for (CSVRecord record : records) {
+			blackhole.consume(table.map(record));
+		}
+	}
+
+	@Benchmark
+	public void parseAndMap(Blackhole blackhole) throws IOException {
+		try (CSVParser parser = table.parse(new StringReader(csv))) {
+			for (CSVRecord record : parser) {
+				blackhole.consume(table.map(record));
+			}
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(CsvTableBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
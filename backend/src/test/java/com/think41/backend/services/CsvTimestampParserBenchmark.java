@@ -0,0 +1,64 @@
+package com.think41.backend.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand-rolled timestamp parser with the original formatter chain on the
+ * created_at / shipped_at / delivered_at / returned_at cells of order_items.csv rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvTimestampParserBenchmark {
+
+	// Timestamp cells of order_items rows as they appear in the export (empty = not yet shipped/delivered/returned)
+	private final String[][] orderItemRows = {
+			{"2023-03-13 01:56:52+00:00", "2023-03-14 10:33:13+00:00", "2023-03-16 21:35:13+00:00", ""},
+			{"2022-11-23 06:26:00.392541+00:00", "2022-11-24 21:08:00+00:00", "", ""},
+			{"2024-01-17 08:17:57.514223+00:00", "", "", ""},
+			{"2021-06-02 14:01:34+00:00", "2021-06-03 03:45:34+00:00", "2021-06-07 00:09:34+00:00", "2021-06-08 17:51:34+00:00"},
+			{"2023-09-30 23:59:11.002071+00:00", "2023-10-01 17:10:11+00:00", "2023-10-04 05:44:11+00:00", ""},
+			{"2020-02-29 12:00:00+00:00", "2020-03-01 09:30:00+00:00", "", ""},
+	};
+
+	@Benchmark
+	public void fastParser(Blackhole blackhole) {
+		for (String[] row : orderItemRows) {
+			for (String cell : row) {
+				blackhole.consume(CsvTimestampParser.parse(cell));
+			}
+		}
+	}
+
+	@Benchmark
+	public void formatterChain(Blackhole blackhole) {
+		for (String[] row : orderItemRows) {
+			for (String cell : row) {
+				blackhole.consume(cell.isEmpty() ? null : CsvTimestampParser.parseWithFormatters(cell));
+			}
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(CsvTimestampParserBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
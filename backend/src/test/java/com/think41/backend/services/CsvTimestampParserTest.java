@@ -0,0 +1,39 @@
+package com.think41.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvTimestampParserTest {
+
+	@Test
+	void parsesExportShapesOnTheFastPath() {
+		LocalDate expected = LocalDate.of(2024, 1, 1);
+		assertThat(CsvTimestampParser.parseFast("2024-01-01 13:11:59.341450+00:00")).isEqualTo(expected);
+		assertThat(CsvTimestampParser.parseFast("2024-01-01 13:11:59+00:00")).isEqualTo(expected);
+		assertThat(CsvTimestampParser.parseFast("2024-01-01 13:11:59.341")).isEqualTo(expected);
+		assertThat(CsvTimestampParser.parseFast("2024-01-01 13:11:59")).isEqualTo(expected);
+		assertThat(CsvTimestampParser.parseFast("2024-01-01T23:11:59-05:00")).isEqualTo(expected);
+	}
+
+	@Test
+	void rejectsMalformedValuesWithoutThrowing() {
+		assertThat(CsvTimestampParser.parseFast("2023-02-29 00:00:00+00:00")).isNull();
+		assertThat(CsvTimestampParser.parseFast("2024-13-01 00:00:00")).isNull();
+		assertThat(CsvTimestampParser.parseFast("2024-01-01 24:00:00")).isNull();
+		assertThat(CsvTimestampParser.parseFast("2024-01-01 13:11:59.")).isNull();
+		assertThat(CsvTimestampParser.parseFast("2024-01-01 13:11:59+0000")).isNull();
+		assertThat(CsvTimestampParser.parseFast("2024/01/01 13:11:59")).isNull();
+	}
+
+	@Test
+	void handlesEmptyCellsAndFallsBackToFormatters() {
+		assertThat(CsvTimestampParser.parse(null)).isNull();
+		assertThat(CsvTimestampParser.parse("  ")).isNull();
+		assertThat(CsvTimestampParser.parse("NULL")).isNull();
+		assertThat(CsvTimestampParser.parse(" 2020-02-29 12:00:00+00:00 ")).isEqualTo(LocalDate.of(2020, 2, 29));
+		assertThat(CsvTimestampParser.parse("2024-01-01T13:11:59.1+01:00")).isEqualTo(LocalDate.of(2024, 1, 1));
+	}
+}
@@ -0,0 +1,83 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ProductSearchResult;
+import com.think41.backend.Repo.ProductRepository;
+import com.think41.backend.TestDatabase;
+import com.think41.backend.entity.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// product.search.mode=database against an embedded PostgreSQL, since the queries are native SQL
+@SpringBootTest(properties = {"csv.loader.enabled=false", "groq.api.key=test", "product.search.mode=database"})
+class DatabaseProductSearchTest {
+
+	private static final long JACKET_ID = 990_000_101L;
+	private static final long JEANS_ID = 990_000_102L;
+
+	@Autowired
+	private ProductSearch productSearch;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		TestDatabase.register(registry);
+	}
+
+	@BeforeEach
+	void setUp() {
+		productRepository.saveAll(List.of(
+				product(JACKET_ID, "Arcadia II Waterproof Rain Jacket", "Columbia", "Outerwear & Coats", "Women", 64.99),
+				product(JEANS_ID, "505 Regular Fit Jean", "Levi's", "Jeans", "Men", 59.5)));
+	}
+
+	@AfterEach
+	void tearDown() {
+		productRepository.deleteAllById(List.of(JACKET_ID, JEANS_ID));
+	}
+
+	@Test
+	void fullTextMatchReturnsEveryColumn() {
+		assertThat(productSearch).isInstanceOf(DatabaseProductSearch.class);
+
+		List<ProductSearchResult> results = productSearch.search("arcadia jacket", 5);
+
+		assertThat(results).singleElement().satisfies(result -> {
+			assertThat(result.getId()).isEqualTo(JACKET_ID);
+			assertThat(result.getName()).isEqualTo("Arcadia II Waterproof Rain Jacket");
+			assertThat(result.getBrand()).isEqualTo("Columbia");
+			assertThat(result.getCategory()).isEqualTo("Outerwear & Coats");
+			assertThat(result.getDepartment()).isEqualTo("Women");
+			assertThat(result.getRetailPrice()).isEqualTo(64.99);
+		});
+	}
+
+	@Test
+	void typosFallBackToSimilarityWithThePrice() {
+		List<ProductSearchResult> results = productSearch.search("waterprof", 5);
+
+		assertThat(results).extracting(ProductSearchResult::getId).containsExactly(JACKET_ID);
+		assertThat(results.get(0).getRetailPrice()).isEqualTo(64.99);
+	}
+
+	private static Product product(long id, String name, String brand, String category, String department, double price) {
+		Product product = new Product();
+		product.setId(id);
+		product.setName(name);
+		product.setBrand(brand);
+		product.setCategory(category);
+		product.setDepartment(department);
+		product.setRetailPrice(price);
+		return product;
+	}
+}
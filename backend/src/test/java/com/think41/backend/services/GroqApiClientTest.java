@@ -0,0 +1,144 @@
+package com.think41.backend.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GroqApiClientTest {
+
+	private static final int CONCURRENT_REQUESTS = 16;
+	private static final List<Map<String, String>> PROMPT = List.of(Map.of("role", "user", "content", "Do you have Levi's 505 jeans?"));
+
+	private final GroqTransport transport = mock(GroqTransport.class);
+
+	@Test
+	void cacheKeyIgnoresWhitespaceDifferencesInMessages() {
+		GroqApiClient client = client(0);
+
+		String key = GroqApiClient.cacheKey(request(client, "Do you have  Levi's 505\njeans?"));
+
+		assertThat(GroqApiClient.cacheKey(request(client, "  Do you have Levi's 505 jeans?\t"))).isEqualTo(key);
+		assertThat(GroqApiClient.cacheKey(request(client, "Do you have Levi's 501 jeans?"))).isNotEqualTo(key);
+	}
+
+	@Test
+	void cacheKeyCoversRolesAndGenerationParameters() {
+		GroqApiClient client = client(0);
+		String key = GroqApiClient.cacheKey(request(client, "Hello"));
+
+		ObjectNode assistantTurn = client.buildRequestBody(List.of(Map.of("role", "assistant", "content", "Hello")), false);
+		assertThat(GroqApiClient.cacheKey(assistantTurn)).isNotEqualTo(key);
+		assertThat(GroqApiClient.cacheKey(request(client(0.7), "Hello"))).isNotEqualTo(key);
+		assertThat(GroqApiClient.cacheKey(client.buildRequestBody(List.of(Map.of("role", "user", "content", "Hello")), true)))
+				.isNotEqualTo(key);
+	}
+
+	@Test
+	void cacheKeyDoesNotModifyTheRequest() {
+		GroqApiClient client = client(0);
+		ObjectNode request = request(client, "  spaced   out  ");
+
+		GroqApiClient.cacheKey(request);
+
+		assertThat(request.at("/messages/0/content").asText()).isEqualTo("  spaced   out  ");
+	}
+
+	@Test
+	void concurrentIdenticalRequestsShareOneUpstreamCall() {
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		when(transport.post(any())).thenReturn(Mono.defer(() -> {
+			upstreamCalls.incrementAndGet();
+			return Mono.delay(Duration.ofMillis(200)).thenReturn(completion("Happy to help!"));
+		}));
+		GroqApiClient client = client(0.7); // above max-temperature, so nothing is served from the response cache
+
+		List<String> answers = Flux.range(0, CONCURRENT_REQUESTS)
+				.flatMap(i -> client.getChatCompletion(PROMPT).subscribeOn(Schedulers.parallel()))
+				.collectList()
+				.block(Duration.ofSeconds(5));
+
+		assertThat(answers).hasSize(CONCURRENT_REQUESTS).containsOnly("Happy to help!");
+		assertThat(upstreamCalls).hasValue(1);
+		assertThat(client.inFlightRequests()).isZero();
+
+		client.getChatCompletion(PROMPT).block(Duration.ofSeconds(5));
+		assertThat(upstreamCalls).hasValue(2); // a finished call is not reused
+	}
+
+	@Test
+	void concurrentIdenticalRequestsShareTheUpstreamError() {
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		when(transport.post(any())).thenReturn(Mono.defer(() -> {
+			upstreamCalls.incrementAndGet();
+			return Mono.delay(Duration.ofMillis(200)).then(Mono.<JsonNode>error(new GroqUnavailableException("Groq is down")));
+		}));
+		GroqApiClient client = client(0);
+
+		List<Throwable> errors = Flux.range(0, CONCURRENT_REQUESTS)
+				.flatMap(i -> client.getChatCompletion(PROMPT)
+						.subscribeOn(Schedulers.parallel())
+						.map(answer -> (Throwable) new AssertionError("unexpected answer " + answer))
+						.onErrorResume(Mono::just))
+				.collectList()
+				.block(Duration.ofSeconds(5));
+
+		assertThat(errors).hasSize(CONCURRENT_REQUESTS)
+				.allSatisfy(e -> assertThat(e).isInstanceOf(GroqUnavailableException.class).hasMessage("Groq is down"));
+		assertThat(upstreamCalls).hasValue(1);
+		assertThat(client.inFlightRequests()).isZero();
+	}
+
+	@Test
+	void reportsGroqOverloadThatOutlastedTheRetriesAsUnavailable() {
+		WebClientResponseException tooManyRequests = WebClientResponseException.create(429, "Too Many Requests",
+				HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8);
+		when(transport.post(any())).thenReturn(Mono.error(tooManyRequests));
+
+		assertThatThrownBy(() -> client(0).getChatCompletion(PROMPT).block())
+				.isInstanceOf(GroqUnavailableException.class)
+				.hasCause(tooManyRequests);
+	}
+
+	@Test
+	void leavesRequestErrorsAsTheyAre() {
+		WebClientResponseException badRequest = WebClientResponseException.create(400, "Bad Request",
+				HttpHeaders.EMPTY, new byte[0], StandardCharsets.UTF_8);
+		when(transport.post(any())).thenReturn(Mono.error(badRequest));
+
+		assertThatThrownBy(() -> client(0).getChatCompletion(PROMPT).block()).isSameAs(badRequest);
+	}
+
+	private static JsonNode completion(String content) {
+		ObjectNode response = new ObjectMapper().createObjectNode();
+		response.putArray("choices").addObject().putObject("message").put("content", content);
+		return response;
+	}
+
+	private GroqApiClient client(double temperature) {
+		return new GroqApiClient("test-model", temperature, 500, true, Duration.ofMinutes(10), 100, 0,
+				transport, new SimpleMeterRegistry());
+	}
+
+	private static ObjectNode request(GroqApiClient client, String content) {
+		return client.buildRequestBody(List.of(Map.of("role", "user", "content", content)), false);
+	}
+}
@@ -0,0 +1,183 @@
+package com.think41.backend.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs GroqTransport against a local stub that answers each request from a script of delays and faults
+class GroqTransportTest {
+
+	private static final StubResponse OK = new StubResponse(200, 0, null, "{\"ok\": true}");
+
+	private final Queue<StubResponse> script = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger requests = new AtomicInteger();
+	private final ExecutorService stubThreads = Executors.newCachedThreadPool();
+	private final ObjectNode body = new ObjectMapper().createObjectNode().put("model", "test");
+	private volatile StubResponse fallback = OK;
+	private HttpServer server;
+	private GroqTransportProperties properties;
+	private GroqTransport transport;
+
+	private record StubResponse(int status, long delayMillis, String retryAfter, String body) {
+	}
+
+	@BeforeEach
+	void startStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(stubThreads); // slow responses must not hold up the next request
+		server.createContext("/", exchange -> {
+			requests.incrementAndGet();
+			exchange.getRequestBody().readAllBytes();
+			StubResponse scripted = script.poll();
+			StubResponse response = scripted != null ? scripted : fallback;
+			try {
+				Thread.sleep(response.delayMillis());
+				byte[] bytes = response.body() == null ? new byte[0] : response.body().getBytes(StandardCharsets.UTF_8);
+				if (response.retryAfter() != null) {
+					exchange.getResponseHeaders().add("Retry-After", response.retryAfter());
+				}
+				exchange.getResponseHeaders().add("Content-Type",
+						bytes.length > 0 && response.body().startsWith("data:") ? "text/event-stream" : "application/json");
+				exchange.sendResponseHeaders(response.status(), bytes.length == 0 ? -1 : bytes.length);
+				exchange.getResponseBody().write(bytes);
+			} catch (IOException | InterruptedException e) {
+				// the client gave up on this request (timeout or losing hedge)
+			} finally {
+				exchange.close();
+			}
+		});
+		server.start();
+
+		properties = new GroqTransportProperties();
+		properties.setMinBackoff(Duration.ofMillis(10));
+		properties.setMaxBackoff(Duration.ofMillis(50));
+		properties.setAttemptTimeout(Duration.ofSeconds(2));
+		properties.setDeadline(Duration.ofSeconds(10));
+	}
+
+	@AfterEach
+	void stopStub() {
+		if (transport != null) {
+			transport.shutdown();
+		}
+		server.stop(0);
+		stubThreads.shutdownNow();
+	}
+
+	@Test
+	void retriesServerErrorsAndWaitsForRetryAfter() {
+		script.add(new StubResponse(503, 0, null, null));
+		script.add(new StubResponse(429, 0, "1", null));
+		transport = transport();
+
+		long start = System.nanoTime();
+		JsonNode response = transport.post(body).block();
+
+		assertThat(response.path("ok").asBoolean()).isTrue();
+		assertThat(requests.get()).isEqualTo(3);
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(900));
+	}
+
+	@Test
+	void doesNotRetryClientErrorsOrLongRetryAfter() {
+		script.add(new StubResponse(400, 0, null, "{\"error\": \"bad request\"}"));
+		script.add(new StubResponse(429, 0, "60", null));
+		transport = transport();
+
+		assertThatThrownBy(() -> transport.post(body).block()).isInstanceOf(WebClientResponseException.BadRequest.class);
+		assertThatThrownBy(() -> transport.post(body).block()).isInstanceOf(WebClientResponseException.TooManyRequests.class);
+		assertThat(requests.get()).isEqualTo(2);
+	}
+
+	@Test
+	void abandonsSlowAttemptsAfterTheAttemptTimeout() {
+		properties.setAttemptTimeout(Duration.ofMillis(300));
+		script.add(new StubResponse(200, 3000, null, "{\"ok\": false}"));
+		transport = transport();
+
+		long start = System.nanoTime();
+		JsonNode response = transport.post(body).block();
+
+		assertThat(response.path("ok").asBoolean()).isTrue();
+		assertThat(requests.get()).isEqualTo(2);
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1500));
+	}
+
+	@Test
+	void opensTheCircuitAfterRepeatedFailures() throws InterruptedException {
+		properties.setMaxAttempts(1);
+		properties.setCircuitBreakerWindow(4);
+		properties.setCircuitBreakerMinimumCalls(4);
+		properties.setCircuitBreakerOpenDuration(Duration.ofMillis(300));
+		fallback = new StubResponse(500, 0, null, null);
+		transport = transport();
+
+		for (int i = 0; i < 4; i++) {
+			assertThatThrownBy(() -> transport.post(body).block()).isInstanceOf(WebClientResponseException.class);
+		}
+		assertThatThrownBy(() -> transport.post(body).block()).isInstanceOf(GroqUnavailableException.class);
+		assertThat(requests.get()).isEqualTo(4);
+		assertThat(transport.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+		// After the open period one trial call goes through, and its success closes the circuit
+		Thread.sleep(400);
+		fallback = OK;
+		assertThat(transport.post(body).block().path("ok").asBoolean()).isTrue();
+		assertThat(transport.circuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void hedgesARequestThatIsSlowerThanTheHedgeDelay() {
+		properties.setHedgeEnabled(true);
+		properties.setHedgeDelay(Duration.ofMillis(100));
+		properties.setAttemptTimeout(Duration.ofSeconds(5));
+		script.add(new StubResponse(200, 2000, null, "{\"ok\": false}"));
+		transport = transport();
+
+		long start = System.nanoTime();
+		JsonNode response = transport.post(body).block();
+
+		assertThat(response.path("ok").asBoolean()).isTrue();
+		assertThat(requests.get()).isEqualTo(2);
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1000));
+	}
+
+	@Test
+	void retriesAStreamThatFailsBeforeItsFirstChunk() {
+		script.add(new StubResponse(503, 0, null, null));
+		fallback = new StubResponse(200, 0, null,
+				"data: {\"choices\": [{\"delta\": {\"content\": \"Hello\"}}]}\n\ndata: [DONE]\n\n");
+		transport = transport();
+
+		List<String> chunks = transport.stream(body.deepCopy().put("stream", true)).collectList().block();
+
+		assertThat(chunks).containsExactly("{\"choices\": [{\"delta\": {\"content\": \"Hello\"}}]}");
+		assertThat(requests.get()).isEqualTo(2);
+	}
+
+	private GroqTransport transport() {
+		return new GroqTransport("http://127.0.0.1:" + server.getAddress().getPort() + "/openai/v1/chat/completions",
+				"test-key", properties, WebClient.builder(), new SimpleMeterRegistry());
+	}
+}
@@ -0,0 +1,57 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ProductSearchResult;
+import com.think41.backend.services.IntentRouter.OrderStatusIntent;
+import com.think41.backend.services.IntentRouter.ProductIntent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntentRouterTest {
+
+	private final ProductSearchResult tShirt = new ProductSearchResult(2L, "Slim Fit T-Shirt", "Hanes", "Tops & Tees", "Men", 9.99);
+	private final IntentRouter router = new IntentRouter((query, limit) -> List.of(tShirt), true);
+
+	@Test
+	void routesSingleOrderLookups() {
+		assertThat(router.route("Check order 12345")).contains(new OrderStatusIntent(12345));
+		assertThat(router.route("where is my order #54321?")).contains(new OrderStatusIntent(54321));
+		assertThat(router.route("Hi, can you check order id: 99 please?")).contains(new OrderStatusIntent(99));
+		assertThat(router.route("order 7 status")).contains(new OrderStatusIntent(7));
+	}
+
+	@Test
+	void leavesAnythingElseToTheLlm() {
+		assertThat(router.route("status of orders 1, 2 and 3")).isEmpty();
+		assertThat(router.route("Is order 5 shipped?")).isEmpty();
+		assertThat(router.route("Do you have shirts?")).isEmpty();
+		assertThat(router.route("slim fit t shirt")).isEmpty(); // a name without a request
+		assertThat(new IntentRouter((query, limit) -> List.of(tShirt), false).route("Check order 1")).isEmpty();
+	}
+
+	@Test
+	void routesExactProductNames() {
+		assertThat(router.route("Do you have the Slim Fit T-Shirt?")).contains(new ProductIntent(tShirt));
+		assertThat(router.route("is the slim fit t shirt in stock")).contains(new ProductIntent(tShirt));
+		assertThat(router.route("I'm looking for a Slim Fit T-Shirt.")).contains(new ProductIntent(tShirt));
+	}
+
+	@Test
+	void leavesProductsSharingANameToTheLlm() {
+		ProductSearchResult womensTShirt = new ProductSearchResult(3L, "Slim Fit T-Shirt", "Hanes", "Tops & Tees", "Women", 11.99);
+		IntentRouter ambiguous = new IntentRouter((query, limit) -> List.of(tShirt, womensTShirt), true);
+
+		assertThat(ambiguous.route("Do you have the Slim Fit T-Shirt?")).isEmpty();
+	}
+
+	@Test
+	void leavesProductsWithoutABrandOrPriceToTheLlm() {
+		ProductSearchResult noBrand = new ProductSearchResult(4L, "Cable Knit Beanie", null, "Accessories", "Women", 14.5);
+		ProductSearchResult noPrice = new ProductSearchResult(5L, "Wool Scarf", "Hanes", "Accessories", "Women", null);
+
+		assertThat(new IntentRouter((query, limit) -> List.of(noBrand), true).route("Do you have the Cable Knit Beanie?")).isEmpty();
+		assertThat(new IntentRouter((query, limit) -> List.of(noPrice), true).route("Do you have the Wool Scarf?")).isEmpty();
+	}
+}
@@ -0,0 +1,48 @@
+package com.think41.backend.services;
+
+import com.think41.backend.Repo.OrderRepository;
+import com.think41.backend.TestDatabase;
+import com.think41.backend.entity.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Writes through JPA reach the cache via the entity listener's events
+@SpringBootTest(properties = {"csv.loader.enabled=false", "groq.api.key=test"})
+class OrderCacheEvictionListenerTest {
+
+	private static final long ORDER_ID = 990_000_301L;
+
+	@Autowired
+	private ToolResultCache toolResultCache;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		TestDatabase.register(registry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		orderRepository.deleteById(ORDER_ID);
+	}
+
+	@Test
+	void writingAnOrderEvictsItsCachedStatus() {
+		assertThat(toolResultCache.orderStatus(ORDER_ID, id -> "Processing")).isEqualTo("Processing");
+
+		Order order = new Order();
+		order.setId(ORDER_ID);
+		order.setStatus("Shipped");
+		orderRepository.save(order);
+
+		assertThat(toolResultCache.orderStatus(ORDER_ID, id -> "Shipped")).isEqualTo("Shipped");
+	}
+}
@@ -0,0 +1,58 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ProductSearchResult;
+import com.think41.backend.Repo.ProductRepository;
+import com.think41.backend.TestDatabase;
+import com.think41.backend.entity.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// Writes through JPA reach the in-memory index via the entity listener's events
+@SpringBootTest(properties = {"csv.loader.enabled=false", "groq.api.key=test", "product.search.mode=memory"})
+class ProductIndexListenerTest {
+
+	private static final long PRODUCT_ID = 990_000_401L;
+
+	@Autowired
+	private ProductSearch productSearch;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		TestDatabase.register(registry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		productRepository.deleteById(PRODUCT_ID);
+	}
+
+	@Test
+	void savedProductsBecomeSearchable() {
+		assertThat(productSearch).isInstanceOf(InMemoryProductSearch.class);
+
+		Product product = new Product();
+		product.setId(PRODUCT_ID);
+		product.setName("Quilted Corduroy Overshirt");
+		product.setBrand("Carhartt");
+		product.setCategory("Outerwear & Coats");
+		product.setDepartment("Men");
+		product.setRetailPrice(79.0);
+		productRepository.save(product);
+
+		await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+				assertThat(productSearch.search("corduroy overshirt", 5))
+						.extracting(ProductSearchResult::getId).contains(PRODUCT_ID));
+	}
+}
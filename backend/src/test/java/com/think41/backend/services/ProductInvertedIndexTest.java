@@ -0,0 +1,77 @@
+package com.think41.backend.services;
+
+import com.think41.backend.DTO.ProductSearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductInvertedIndexTest {
+
+	private ProductInvertedIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new ProductInvertedIndex();
+		index.add(product(1L, "Levi's 501 Original Jeans", "Levi's", "Jeans", "Men"));
+		index.add(product(2L, "Slim Fit T-Shirt", "Hanes", "Tops & Tees", "Men"));
+		index.add(product(3L, "Running Shoes Pro", "Nike", "Shoes", "Women"));
+		index.add(product(4L, "Denim Jacket", "Levi's", "Outerwear & Coats", "Women"));
+		index.add(product(5L, "Tshirt Classic", "Gildan", "Tops & Tees", "Women"));
+	}
+
+	@Test
+	void ranksDocumentsMatchingEveryTokenFirst() {
+		assertThat(ids(index.search("levis jeans", 5))).containsExactly(1L, 4L);
+		assertThat(ids(index.search("NIKE", 5))).containsExactly(3L);
+	}
+
+	@Test
+	void matchesPrefixesTyposAndWordsInsideTerms() {
+		assertThat(ids(index.search("jea", 5))).containsExactly(1L);
+		assertThat(ids(index.search("runing shoes", 5))).containsExactly(3L);
+		assertThat(ids(index.search("shirt", 5))).containsExactly(2L, 5L);
+	}
+
+	@Test
+	void returnsAtMostLimitResults() {
+		assertThat(index.search("levis", 1)).hasSize(1);
+		assertThat(index.search("", 5)).isEmpty();
+		assertThat(index.search("levis", 0)).isEmpty();
+	}
+
+	@Test
+	void updatesReplaceEarlierVersions() {
+		index.add(product(3L, "Trail Boots", "Nike", "Shoes", "Women"));
+		index.remove(1L);
+
+		assertThat(index.search("running", 5)).isEmpty();
+		assertThat(ids(index.search("boots", 5))).containsExactly(3L);
+		assertThat(ids(index.search("levis", 5))).containsExactly(4L);
+		assertThat(index.size()).isEqualTo(4);
+		assertThat(index.deletedCount()).isEqualTo(2);
+	}
+
+	@Test
+	void searchesOnlyTheFirstTokensOfAVeryLongQuery() {
+		String words = IntStream.range(100, 400).mapToObj(n -> "x" + n).collect(Collectors.joining(" "));
+		index.add(product(6L, words, "Verbose", "Accessories", "Women"));
+		index.add(product(7L, "x390 Scarf", "Hanes", "Accessories", "Women"));
+
+		List<Long> found = ids(index.search(words, 5));
+
+		assertThat(found).containsExactly(6L); // x390 lies beyond the first MAX_QUERY_TOKENS tokens
+	}
+
+	private static ProductSearchResult product(Long id, String name, String brand, String category, String department) {
+		return new ProductSearchResult(id, name, brand, category, department, 10.0);
+	}
+
+	private static List<Long> ids(List<ProductSearchResult> results) {
+		return results.stream().map(ProductSearchResult::getId).toList();
+	}
+}
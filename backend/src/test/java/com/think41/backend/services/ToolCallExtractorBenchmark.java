@@ -0,0 +1,72 @@
+package com.think41.backend.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link ToolCallExtractor} with the regex it replaced on typical LLM responses: plain
+ * answers, bare tool calls, and calls surrounded by prose. Note that the regex misses several of
+ * these calls (non-alphanumeric values, nested arguments), so it does less work for a wrong answer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolCallExtractorBenchmark {
+
+	// The pattern ChatToolService used before the extractor
+	private static final Pattern TOOL_CALL_PATTERN = Pattern.compile("\\{\\s*\"tool\"\\s*:\\s*\"([a-zA-Z_]+)\"\\s*,\\s*\"([a-zA-Z_]+)\"\\s*:\\s*\"?([a-zA-Z0-9 ]+)\"?\\s*\\}");
+
+	private final String[] responses = {
+			"Order 54321 is currently 'SHIPPED' and was created on 2024-03-02T10:15:00. It contains 2 items. "
+					+ "Is there anything else I can help you with?",
+			"{\"tool\": \"check_order_status\", \"order_id\": 54321}",
+			"{\"tool\": \"search_products\", \"query\": \"denim jacket\"}\n"
+					+ "{\"tool\": \"check_order_status\", \"order_id\": 12345}",
+			"Sure! I'll look that up for you.\n```json\n{\"tool\": \"search_products\", \"query\": \"Levi's 501\"}\n```",
+			"We have a few options in stock:\n- Slim Fit T-Shirt (Brand: Hanes, Price: $12.99)\n"
+					+ "- Relaxed Fit Jeans (Brand: Levi's, Price: $59.50)\nLet me know if you'd like sizes {S, M, L}.",
+	};
+
+	@Benchmark
+	public void extractor(Blackhole blackhole) {
+		for (String response : responses) {
+			blackhole.consume(ToolCallExtractor.extract(response));
+		}
+	}
+
+	@Benchmark
+	public void regex(Blackhole blackhole) {
+		for (String response : responses) {
+			Matcher matcher = TOOL_CALL_PATTERN.matcher(response);
+			while (matcher.find()) {
+				blackhole.consume(matcher.group(1));
+				blackhole.consume(matcher.group(2));
+				blackhole.consume(matcher.group(3));
+			}
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ToolCallExtractorBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
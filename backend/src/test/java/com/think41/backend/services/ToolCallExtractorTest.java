@@ -0,0 +1,70 @@
+package com.think41.backend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.think41.backend.services.ToolCallExtractor.ToolCall;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToolCallExtractorTest {
+
+	@Test
+	void findsToolCallsAnywhereWithAnyArgumentTypes() {
+		String response = """
+				Let me check both for you.
+				```json
+				{"tool": "check_order_status", "order_id": 12345}
+				```
+				- {"tool": "search_products", "query": "Levi's 501 jeans, 32\\" waist", "filters": {"size": [32, 34]}}
+				""";
+
+		List<ToolCall> calls = ToolCallExtractor.extract(response);
+
+		assertThat(calls).extracting(ToolCall::name).containsExactly("check_order_status", "search_products");
+		assertThat(calls.get(0).argument("order_id")).isEqualTo("12345");
+		assertThat(calls.get(1).argument("query")).isEqualTo("Levi's 501 jeans, 32\" waist");
+		assertThat(calls.get(1).argument("filters")).isEqualTo("{\"size\":[32,34]}");
+	}
+
+	@Test
+	void ignoresObjectsThatAreNotToolCalls() {
+		assertThat(ToolCallExtractor.extract("Sizes run small {like this} or {\"size\": \"M\"}. {\"tool\": ")).isEmpty();
+		// A broken object doesn't hide a call that starts inside it
+		assertThat(ToolCallExtractor.extract("{\"note\": {\"tool\": \"search_products\", \"query\": \"hats\"}"))
+				.extracting(ToolCall::name).containsExactly("search_products");
+	}
+
+	@Test
+	void streamsTextAroundCallsSplitAtAnyPoint() {
+		String response = "Checking {\"tool\": \"check_order_status\", \"order_id\": 7} now. Café {ok}";
+		for (int chunk = 1; chunk <= 5; chunk++) {
+			ToolCallExtractor.Session session = new ToolCallExtractor.Session();
+			StringBuilder text = new StringBuilder();
+			for (int i = 0; i < response.length(); i += chunk) {
+				session.append(response.substring(i, Math.min(response.length(), i + chunk)));
+				text.append(session.drainText());
+			}
+			session.finish();
+			text.append(session.drainText());
+
+			assertThat(session.toolCalls()).extracting(ToolCall::name).containsExactly("check_order_status");
+			assertThat(text.toString()).isEqualTo("Checking  now. Café {ok}");
+		}
+	}
+
+	@Test
+	void readsNativeToolCalls() throws Exception {
+		String toolCalls = """
+				[{"id": "call_1", "type": "function",
+				  "function": {"name": "search_products", "arguments": "{\\"query\\": \\"denim jacket\\"}"}}]
+				""";
+
+		List<ToolCall> calls = ToolCallExtractor.fromNativeToolCalls(new ObjectMapper().readTree(toolCalls));
+
+		assertThat(calls).hasSize(1);
+		assertThat(calls.get(0).toJson()).isEqualTo("{\"tool\":\"search_products\",\"query\":\"denim jacket\"}");
+		assertThat(ToolCallExtractor.extract(calls.get(0).toJson())).isEqualTo(calls);
+	}
+}